@@ -0,0 +1,96 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import br.com.criative.libraryapi.LibraryApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/* Sobe a aplicação completa em uma porta aleatória com um H2 exclusivo
+e popula o catálogo pelo endpoint de importação em lote */
+public class BenchmarkApplication implements AutoCloseable {
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ConfigurableApplicationContext context;
+
+    private final String baseUrl;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    public BenchmarkApplication(Map<String, Object> properties) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("server.port", 0);
+        arguments.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        arguments.put("logging.level.root", "warn");
+        arguments.putAll(properties);
+
+        /* Passadas como argumentos de linha de comando para ter precedência
+        sobre o application.properties e os arquivos de profile */
+        String[] args = arguments.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        this.context = new SpringApplicationBuilder(LibraryApiApplication.class, SlowDataSourceConfig.class)
+                .run(args);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port + "/api/books";
+    }
+
+    public BenchmarkApplication seed(int books) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        int chunk = 5000;
+        for (int start = 0; start < books; start += chunk) {
+            StringBuilder body = new StringBuilder();
+            for (int i = start; i < Math.min(books, start + chunk); i++) {
+                body.append(String.format("{\"title\":\"Livro %d\",\"author\":\"Autor %d\",\"isbn\":\"isbn-%d\"}%n",
+                        i, i % 500, i));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/batch"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            for (JsonNode row : MAPPER.readTree(response.body())) {
+                if (row.get("accepted").asBoolean()) {
+                    ids.add(row.get("id").asLong());
+                }
+            }
+        }
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public static void write(String fileName, String json) throws IOException {
+        Path path = Paths.get("target", "benchmarks", fileName);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, json);
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* Custo de conversão entre a entidade Book e o BookResponse usado nos endpoints */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookMappingJmh {
+
+    Book book = new Book(1L, "O Senhor dos Anéis", "J. R. R. Tolkien", "978-85-333-0227-3", 3L);
+
+    BookResponse response = new BookResponse("O Senhor dos Anéis", "J. R. R. Tolkien", "978-85-333-0227-3");
+
+    @Benchmark
+    public BookResponse toResponseBook() {
+        return book.toResponseBook();
+    }
+
+    @Benchmark
+    public Book toModelBook() {
+        return response.toModelBook();
+    }
+}
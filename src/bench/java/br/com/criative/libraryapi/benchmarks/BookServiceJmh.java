@@ -0,0 +1,106 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import br.com.criative.libraryapi.LibraryApiApplication;
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Caminhos mais usados do BookServiceImpl contra um H2 embarcado populado com catalogSize livros.
+Execução: mvn -Pbenchmark test-compile exec:exec -Djmh.args=BookServiceJmh
+Para um catálogo específico: -Djmh.args="BookServiceJmh -p catalogSize=10000" */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookServiceJmh {
+
+    @Param({"10000", "1000000"})
+    int catalogSize;
+
+    @Param({"0", "10000"})
+    int cacheSize;
+
+    ConfigurableApplicationContext context;
+
+    BookService service;
+
+    List<Long> ids;
+
+    final AtomicLong isbns = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--library.cache.maximum-size=" + cacheSize,
+                        "--logging.level.root=warn");
+        service = context.getBean(BookService.class);
+
+        ids = new ArrayList<>(catalogSize);
+        int chunk = 10000;
+        for (int start = 0; start < catalogSize; start += chunk) {
+            List<Book> books = new ArrayList<>(chunk);
+            for (int i = start; i < Math.min(catalogSize, start + chunk); i++) {
+                books.add(new Book("Livro " + i, "Autor " + (i % 1000), "seed-" + i));
+            }
+            service.saveAll(books).forEach(result -> ids.add(result.getId()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book save() {
+        return service.save(new Book("Livro novo", "Autor novo", "jmh-" + isbns.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Optional<Book> getById() {
+        return service.getById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Page<Book> findByExample() {
+        Book filter = new Book("livro " + ThreadLocalRandom.current().nextInt(100), "autor", null);
+        return service.find(filter, PageRequest.of(0, 20));
+    }
+
+    /* Mesmo filtro do findByExample pela projeção; compare gc.alloc.rate.norm entre os dois */
+    @Benchmark
+    public Page<BookResponse> findResponses() {
+        Book filter = new Book("livro " + ThreadLocalRandom.current().nextInt(100), "autor", null);
+        return service.findResponses(filter, PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/* Carga mista usada pelos benchmarks HTTP: leitura por id, busca por título, criação, atualização e exclusão.
+Os pesos podem ser alterados com -Dbench.weight.<operação> */
+final class BookWorkload {
+
+    static final int GET_WEIGHT = Integer.getInteger("bench.weight.get", 70);
+
+    static final int SEARCH_WEIGHT = Integer.getInteger("bench.weight.search", 15);
+
+    static final int CREATE_WEIGHT = Integer.getInteger("bench.weight.create", 5);
+
+    static final int UPDATE_WEIGHT = Integer.getInteger("bench.weight.update", 5);
+
+    static final int DELETE_WEIGHT = Integer.getInteger("bench.weight.delete", 5);
+
+    private BookWorkload() {
+    }
+
+    static List<LoadDriver.Operation> mixed(BenchmarkApplication app) {
+        String baseUrl = app.getBaseUrl();
+        int books = app.getIds().size();
+
+        /* Os livros que podem ser excluídos ficam separados dos usados pela leitura,
+        assim a leitura por id não passa a responder 404 ao longo da execução */
+        List<Long> ids = app.getIds();
+        List<Long> readable = new ArrayList<>(ids.subList(0, ids.size() / 2));
+        Deque<Long> deletable = new ConcurrentLinkedDeque<>(ids.subList(ids.size() / 2, ids.size()));
+        AtomicLong isbns = new AtomicLong();
+
+        List<LoadDriver.Operation> operations = new ArrayList<>();
+        operations.add(new LoadDriver.Operation("get", GET_WEIGHT,
+                random -> LoadDriver.get(baseUrl + "/" + readable.get(random.nextInt(readable.size())))));
+        operations.add(new LoadDriver.Operation("search", SEARCH_WEIGHT,
+                random -> LoadDriver.get(baseUrl + "?title=Livro%20" + random.nextInt(books) + "&size=20")));
+        operations.add(new LoadDriver.Operation("create", CREATE_WEIGHT,
+                random -> LoadDriver.send("POST", baseUrl, String.format(
+                        "{\"title\":\"Livro novo\",\"author\":\"Autor novo\",\"isbn\":\"load-%d\"}",
+                        isbns.incrementAndGet()))));
+        operations.add(new LoadDriver.Operation("update", UPDATE_WEIGHT,
+                random -> LoadDriver.send("PUT", baseUrl + "/" + readable.get(random.nextInt(readable.size())),
+                        "{\"title\":\"Livro revisado\",\"author\":\"Autor " + random.nextInt(500) + "\"}")));
+        operations.add(new LoadDriver.Operation("delete", DELETE_WEIGHT, random -> {
+            Long id = deletable.pollFirst();
+            return LoadDriver.send("DELETE", baseUrl + "/" + (id == null ? -1 : id), null);
+        }));
+        return operations;
+    }
+
+    static Map<String, Object> settings(int books, int concurrency, Duration warmUp, Duration duration,
+                                        List<LoadDriver.Operation> operations) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("books", books);
+        settings.put("concurrency", concurrency);
+        settings.put("warmUpSeconds", warmUp.getSeconds());
+        settings.put("durationSeconds", duration.getSeconds());
+        settings.put("weights", operations.stream()
+                .collect(Collectors.toMap(LoadDriver.Operation::getName, LoadDriver.Operation::getWeight,
+                        (first, second) -> first, LinkedHashMap::new)));
+        return settings;
+    }
+
+    static Map<String, Object> report(String label, Map<String, Object> settings, List<LoadDriver.Result> results) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("settings", settings);
+        report.put("operations", results.stream()
+                .map(LoadDriver.Result::toMap)
+                .collect(Collectors.toList()));
+        return report;
+    }
+}
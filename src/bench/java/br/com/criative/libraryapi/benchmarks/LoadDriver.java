@@ -0,0 +1,272 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/* Dispara requisições HTTP com um número fixo de clientes concorrentes (modelo fechado)
+e registra a latência de cada operação em um HdrHistogram.
+Cada cliente sorteia a próxima operação de acordo com o peso configurado */
+public class LoadDriver {
+
+    static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public Result run(String name, int concurrency, Duration warmUp, Duration duration,
+                      Function<ThreadLocalRandom, HttpRequest> requests) throws Exception {
+        return run(concurrency, warmUp, duration, Collections.singletonList(new Operation(name, 1, requests)))
+                .get(0);
+    }
+
+    public List<Result> run(int concurrency, Duration warmUp, Duration duration,
+                            List<Operation> operations) throws Exception {
+        drive(concurrency, warmUp, operations);
+        for (Operation operation : operations) {
+            operation.reset();
+        }
+
+        long started = System.nanoTime();
+        drive(concurrency, duration, operations);
+        long elapsed = System.nanoTime() - started;
+
+        List<Result> results = new ArrayList<>();
+        for (Operation operation : operations) {
+            results.add(operation.result(elapsed));
+        }
+        return results;
+    }
+
+    private void drive(int concurrency, Duration duration, List<Operation> operations) throws Exception {
+        int totalWeight = operations.stream().mapToInt(Operation::getWeight).sum();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Operation operation = pick(operations, random.nextInt(totalWeight));
+                    HttpRequest request = operation.request(random);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException ex) {
+                        status = 0;
+                    }
+                    operation.record(System.nanoTime() - start, status);
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static Operation pick(List<Operation> operations, int value) {
+        for (Operation operation : operations) {
+            value -= operation.getWeight();
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    public static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    public static HttpRequest send(String method, String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .method(method, json == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    public static class Operation {
+
+        private final String name;
+
+        private final int weight;
+
+        private final Function<ThreadLocalRandom, HttpRequest> requests;
+
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        public Operation(String name, int weight, Function<ThreadLocalRandom, HttpRequest> requests) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive");
+            }
+            this.name = name;
+            this.weight = weight;
+            this.requests = requests;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        HttpRequest request(ThreadLocalRandom random) {
+            return requests.apply(random);
+        }
+
+        void record(long latencyNanos, int status) {
+            recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        void reset() {
+            recorder.reset();
+            statuses.clear();
+        }
+
+        Result result(long elapsedNanos) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return new Result(name, elapsedNanos, recorder.getIntervalHistogram(), counts);
+        }
+    }
+
+    public static class Result {
+
+        private final String name;
+
+        private final long elapsedNanos;
+
+        private final Histogram histogram;
+
+        private final Map<Integer, Long> statuses;
+
+        Result(String name, long elapsedNanos, Histogram histogram, Map<Integer, Long> statuses) {
+            this.name = name;
+            this.elapsedNanos = elapsedNanos;
+            this.histogram = histogram;
+            this.statuses = statuses;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRequests() {
+            return histogram.getTotalCount();
+        }
+
+        /* Respostas 5xx e falhas de conexão (status 0) */
+        public long getErrors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() == 0 || entry.getKey() >= 500)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public double throughput() {
+            return getRequests() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (getRequests() == 0) {
+                return 0;
+            }
+            return histogram.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("name", name);
+            values.put("requests", getRequests());
+            values.put("errors", getErrors());
+            values.put("throughput", round(throughput()));
+            values.put("mean", round(histogram.getMean() / 1_000_000.0));
+            values.put("p50", round(percentileMillis(50)));
+            values.put("p90", round(percentileMillis(90)));
+            values.put("p99", round(percentileMillis(99)));
+            values.put("p999", round(percentileMillis(99.9)));
+            values.put("max", round(histogram.getMaxValue() / 1_000_000.0));
+            Map<String, Long> codes = new LinkedHashMap<>();
+            statuses.forEach((status, count) -> codes.put(String.valueOf(status), count));
+            values.put("statuses", codes);
+            values.put("histogram", encode(histogram));
+            return values;
+        }
+
+        public String toJson() {
+            try {
+                return BenchmarkApplication.MAPPER.writeValueAsString(toMap());
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-28s %8d req %10.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  errors %d",
+                    name, getRequests(), throughput(), percentileMillis(50), percentileMillis(99),
+                    percentileMillis(99.9), getErrors());
+        }
+
+        /* Histograma completo comprimido em base64, pode ser decodificado com
+        Histogram.decodeFromCompressedByteBuffer para comparar distribuições entre builds */
+        private static String encode(Histogram histogram) {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Carga mista contra o BookController: leitura por id, busca por título, criação, atualização e exclusão.
+Execução: mvn -Pbenchmark test -Dtest=MixedWorkloadBenchmark -Dbench.label=antes
+O relatório fica em target/benchmarks/mixed-workload-<label>.json e pode ser comparado entre builds */
+public class MixedWorkloadBenchmark {
+
+    static final String LABEL = System.getProperty("bench.label", "current");
+
+    static final int BOOKS = Integer.getInteger("bench.books", 10000);
+
+    static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 32);
+
+    static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("bench.warmup-seconds", 5));
+
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("bench.duration-seconds", 30));
+
+    @Test
+    @DisplayName("Deve medir latência e vazão por endpoint em uma carga mista")
+    public void mixedWorkload() throws Exception {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("bench.datasource.latency-ms", 0);
+
+        try (BenchmarkApplication app = new BenchmarkApplication(properties).seed(BOOKS)) {
+            List<LoadDriver.Operation> operations = BookWorkload.mixed(app);
+            List<LoadDriver.Result> results = new LoadDriver().run(CONCURRENCY, WARM_UP, DURATION, operations);
+            results.forEach(System.out::println);
+
+            Map<String, Object> report = BookWorkload.report(LABEL,
+                    BookWorkload.settings(BOOKS, CONCURRENCY, WARM_UP, DURATION, operations), results);
+            BenchmarkApplication.write("mixed-workload-" + LABEL + ".json",
+                    BenchmarkApplication.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        }
+    }
+}
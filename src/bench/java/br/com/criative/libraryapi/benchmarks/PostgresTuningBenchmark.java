@@ -0,0 +1,65 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Compara a configuração padrão com o profile prod contra um Postgres embarcado (binários do zonky).
+Execução: mvn -Pbenchmark test -Dtest=PostgresTuningBenchmark
+O Postgres não inicia como root, execute com um usuário comum */
+public class PostgresTuningBenchmark {
+
+    static final int BOOKS = Integer.getInteger("bench.books", 10000);
+
+    static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 32);
+
+    static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("bench.warmup-seconds", 5));
+
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("bench.duration-seconds", 30));
+
+    @Test
+    @DisplayName("Deve comparar a configuração padrão com o profile prod no Postgres")
+    public void compareProfiles() throws Exception {
+
+        Map<String, Object> reports = new LinkedHashMap<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            for (String profile : new String[]{"default", "prod"}) {
+                String database = "library_" + profile;
+                try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("create database " + database);
+                }
+
+                Map<String, Object> properties = new HashMap<>();
+                properties.put("spring.profiles.active", profile);
+                properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", database));
+                properties.put("spring.datasource.username", "postgres");
+                properties.put("spring.datasource.password", "postgres");
+
+                try (BenchmarkApplication app = new BenchmarkApplication(properties).seed(BOOKS)) {
+                    List<LoadDriver.Operation> operations = BookWorkload.mixed(app);
+                    List<LoadDriver.Result> results = new LoadDriver()
+                            .run(CONCURRENCY, WARM_UP, DURATION, operations);
+
+                    System.out.println(profile);
+                    results.forEach(System.out::println);
+                    reports.put(profile, BookWorkload.report(profile,
+                            BookWorkload.settings(BOOKS, CONCURRENCY, WARM_UP, DURATION, operations),
+                            new ArrayList<>(results)));
+                }
+            }
+        }
+
+        BenchmarkApplication.write("postgres-tuning.json",
+                BenchmarkApplication.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(reports));
+    }
+}
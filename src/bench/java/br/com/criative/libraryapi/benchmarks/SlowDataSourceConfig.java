@@ -0,0 +1,67 @@
+package br.com.criative.libraryapi.benchmarks;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/* Simula um banco lento: cada comando preparado aguarda bench.datasource.latency-ms
+antes de chegar ao H2, sem segurar nenhum lock do banco durante a espera */
+@Configuration
+public class SlowDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor slowDataSourcePostProcessor(Environment environment) {
+        long latency = environment.getProperty("bench.datasource.latency-ms", Long.class, 0L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (latency <= 0 || !(bean instanceof DataSource)) {
+                    return bean;
+                }
+                return new SlowDataSource((DataSource) bean, latency);
+            }
+        };
+    }
+
+    static class SlowDataSource extends DelegatingDataSource {
+
+        private final long latency;
+
+        SlowDataSource(DataSource target, long latency) {
+            super(target);
+            this.latency = latency;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return slow(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return slow(super.getConnection(username, password));
+        }
+
+        private Connection slow(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare")) {
+                            Thread.sleep(latency);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getTargetException();
+                        }
+                    });
+        }
+    }
+}
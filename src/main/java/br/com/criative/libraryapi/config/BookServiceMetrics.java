@@ -0,0 +1,70 @@
+package br.com.criative.libraryapi.config;
+
+import br.com.criative.libraryapi.handler.IsbnException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/* Mede cada método do BookService no timer books.operation,
+separado pelo nome da operação e pelo resultado */
+@Aspect
+@Component
+public class BookServiceMetrics {
+
+    static final String TIMER = "books.operation";
+
+    static final String OK = "ok";
+
+    static final String NOT_FOUND = "not_found";
+
+    static final String ISBN_CONFLICT = "isbn_conflict";
+
+    static final String VERSION_CONFLICT = "version_conflict";
+
+    static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public BookServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* br.com.criative.libraryapi.services.BookService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(result);
+            return result;
+        } catch (IsbnException ex) {
+            outcome = ISBN_CONFLICT;
+            throw ex;
+        } catch (OptimisticLockingFailureException ex) {
+            outcome = VERSION_CONFLICT;
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .description("Time spent in BookService operations")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private static String outcome(Object result) {
+        if (result instanceof Optional && !((Optional<?>) result).isPresent()) {
+            return NOT_FOUND;
+        }
+        if (Boolean.FALSE.equals(result)) {
+            return NOT_FOUND;
+        }
+        return OK;
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.criative.libraryapi.config;
+
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/* Envolve o DataSource com o datasource-proxy: conta os comandos executados por thread
+e registra em WARN, com os parâmetros, todo comando acima de library.datasource.slow-query-threshold */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.proxy.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceProxyConfig {
+
+    static final String LOGGER = "br.com.criative.libraryapi.sql.slow";
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(Environment environment) {
+        Duration threshold = environment.getProperty("library.datasource.slow-query-threshold",
+                Duration.class, Duration.ofMillis(200));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .countQuery()
+                        .logSlowQueryBySlf4j(threshold.toMillis(), TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN, LOGGER)
+                        .build();
+            }
+        };
+    }
+}
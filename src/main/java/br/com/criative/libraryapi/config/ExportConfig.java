@@ -0,0 +1,32 @@
+package br.com.criative.libraryapi.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/* Threads da exportação do catálogo, separadas das demais tarefas assíncronas.
+Com o pool e a fila cheios a exportação é recusada em vez de esperar numa fila sem limite */
+@Configuration
+public class ExportConfig {
+
+    @Value("${library.export.pool-size:4}")
+    private int poolSize;
+
+    @Value("${library.export.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Bean
+    public AsyncTaskExecutor exportExecutor(ObjectProvider<TaskDecorator> taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        taskDecorator.ifAvailable(executor::setTaskDecorator);
+        return executor;
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.criative.libraryapi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/* Zera a contagem de comandos SQL da thread no início da requisição e, ao final,
+registra quantos comandos a requisição executou no summary books.request.statements.
+A contagem permanece na thread após a requisição para que os testes possam consultá-la.
+O datasource-proxy conta por thread, então requisições assíncronas (exportação, SSE)
+ficam de fora do summary: os comandos delas rodam em outras threads e a requisição registraria 0 */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "library.datasource.proxy.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String SUMMARY = "books.request.statements";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCountHolder.clear();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                record(request, QueryCountHolder.getGrandTotal());
+            }
+        }
+    }
+
+    private static void record(HttpServletRequest request, QueryCount count) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder(SUMMARY)
+                .description("SQL statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(Metrics.globalRegistry)
+                .record(count.getTotal());
+
+        log.debug("{} {} executed {} statements (select {}, insert {}, update {}, delete {}, other {})",
+                request.getMethod(), uri, count.getTotal(), count.getSelect(), count.getInsert(),
+                count.getUpdate(), count.getDelete(), count.getOther());
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.criative.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Ativado quando library.datasource.replicas.urls é informado.
+O primário continua configurado por spring.datasource.*; as réplicas compartilham usuário e senha
+do primário, a menos que library.datasource.replicas.username/password sejam informados.
+As propriedades spring.datasource.hikari.* valem também para as réplicas, exceto o tamanho do pool */
+@Configuration
+@ConditionalOnExpression("!'${library.datasource.replicas.urls:}'.isBlank()")
+public class ReplicaRoutingConfig implements DisposableBean {
+
+    @Value("${library.datasource.replicas.urls}")
+    private List<String> urls;
+
+    @Value("${library.datasource.replicas.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${library.datasource.replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${library.datasource.replicas.pool-size:10}")
+    private int poolSize;
+
+    @Value("${library.datasource.replicas.selection:round_robin}")
+    private String selection;
+
+    @Value("${library.datasource.replicas.max-lag:5s}")
+    private Duration maxLag;
+
+    @Value("${library.datasource.replicas.lag-query:}")
+    private String lagQuery;
+
+    @Value("${library.datasource.replicas.check-interval:5s}")
+    private Duration checkInterval;
+
+    private ReplicaRoutingDataSource routing;
+
+    /* O roteador não é registrado como bean para que o único DataSource do contexto seja o proxy,
+    evitando que ele seja envolvido duas vezes pelo DataSourceProxyConfig */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        meterRegistry.ifAvailable(registry -> bindMetrics(primary, registry));
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> bindMetrics(replica, registry));
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        routing = new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Selection.valueOf(selection.toUpperCase()), maxLag, lagQuery);
+        routing.afterPropertiesSet();
+        routing.start(checkInterval);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /* Os pools não são beans e o proxy esconde o Hikari do Spring Boot, que por isso não registraria
+    as métricas hikaricp.*; cada pool as publica com a tag pool=primary ou pool=replica-N */
+    private static void bindMetrics(HikariDataSource dataSource, MeterRegistry registry) {
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package br.com.criative.libraryapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/* Envia transações somente leitura para uma réplica saudável e todo o resto para o primário.
+Precisa ficar atrás de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão
+antes de marcar a transação como somente leitura, e o proxy só escolhe o destino no primeiro comando */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LATENCY
+    }
+
+    static final String PRIMARY = "primary";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Selection selection;
+
+    private final Duration maxLag;
+
+    private final String lagQuery;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<Replica> healthy = Collections.emptyList();
+
+    /* lagQuery deve retornar o atraso da réplica em segundos, por exemplo no Postgres:
+    select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+    else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end
+    Sem a comparação dos LSNs o atraso cresceria enquanto o primário não recebe escritas, mesmo com tudo aplicado.
+    Sem lagQuery a réplica só precisa aceitar conexões para ser considerada saudável */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Selection selection,
+                                    Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        this.selection = selection;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public void start(Duration checkInterval) {
+        checkReplicas();
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<Replica> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        if (selection == Selection.LEAST_LATENCY) {
+            return candidates.stream().min(Comparator.comparingLong(Replica::getLatencyNanos)).get().getName();
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size())).getName();
+    }
+
+    void checkReplicas() {
+        List<Replica> available = new ArrayList<>();
+        for (Replica replica : replicas) {
+            boolean wasHealthy = healthy.contains(replica);
+            boolean isHealthy = check(replica);
+            if (isHealthy) {
+                available.add(replica);
+            }
+            if (wasHealthy != isHealthy) {
+                log.warn("Replica {} is now {}", replica.getName(), isHealthy ? "in use" : "out of rotation");
+            }
+        }
+        healthy = Collections.unmodifiableList(available);
+    }
+
+    private boolean check(Replica replica) {
+        long started = System.nanoTime();
+        try (Connection connection = replica.getDataSource().getConnection()) {
+            double lagSeconds = 0;
+            if (lagQuery == null || lagQuery.isBlank()) {
+                if (!connection.isValid(1)) {
+                    return false;
+                }
+            } else {
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery(lagQuery)) {
+                    lagSeconds = result.next() ? result.getDouble(1) : Double.MAX_VALUE;
+                }
+            }
+            replica.recordLatency(System.nanoTime() - started);
+            return lagSeconds * 1000 <= maxLag.toMillis();
+        } catch (Exception ex) {
+            log.debug("Health check of replica {} failed", replica.getName(), ex);
+            return false;
+        }
+    }
+
+    List<String> getHealthyReplicas() {
+        return healthy.stream().map(Replica::getName).collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable) {
+                ((Closeable) replica.getDataSource()).close();
+            }
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+
+    static class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile long latencyNanos = Long.MAX_VALUE;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        DataSource getDataSource() {
+            return dataSource;
+        }
+
+        long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /* Média móvel exponencial para que uma medição isolada não troque a réplica preferida */
+        void recordLatency(long nanos) {
+            long current = latencyNanos;
+            latencyNanos = current == Long.MAX_VALUE ? nanos : (current * 7 + nanos) / 8;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.criative.libraryapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/* Usado pelo BookEventRelay, pelo heartbeat do BookChangeBroadcaster e pela reconciliação do índice de busca */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,37 @@
+package br.com.criative.libraryapi.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/* Além de JSON, as respostas podem ser negociadas em CBOR (application/cbor)
+e Smile (application/x-jackson-smile) pelo cabeçalho Accept.
+Os conversores partem do Jackson2ObjectMapperBuilder do Spring Boot para herdar os mesmos módulos
+e configurações do JSON; o Spring MVC criaria os seus próprios sem essas customizações */
+@Configuration
+public class SerializationConfig {
+
+    /* Gera acessores em bytecode para getters e setters públicos no lugar de reflection */
+    @Bean
+    @ConditionalOnProperty(name = "library.jackson.afterburner", havingValue = "true", matchIfMissing = true)
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
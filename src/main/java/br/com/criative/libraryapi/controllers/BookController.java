@@ -1,89 +1,455 @@
 package br.com.criative.libraryapi.controllers;
 
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCursor;
+import br.com.criative.libraryapi.responses.BookLookupResponse;
 import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.responses.BookSliceResponse;
 import br.com.criative.libraryapi.services.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hibernate.validator.constraints.NotBlank;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final Logger log = LoggerFactory.getLogger(BookController.class);
+
+    static final String NDJSON = "application/x-ndjson";
+
+    static final String CSV = "text/csv";
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_IDS = 1000;
+
+    static final int IMPORT_CHUNK_SIZE = 500;
+
+    static final String NULL_BOOK = "book must not be null";
+
     private final BookService service;
 
-    public BookController(BookService service) {
+    private final Validator validator;
+
+    private final ObjectMapper mapper;
+
+    private final AsyncTaskExecutor exportExecutor;
+
+    private final Duration exportTimeout;
+
+    public BookController(BookService service, Validator validator, ObjectMapper mapper,
+                          @Qualifier("exportExecutor") AsyncTaskExecutor exportExecutor,
+                          @Value("${library.export.timeout:1h}") Duration exportTimeout) {
         this.service = service;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.exportExecutor = exportExecutor;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookResponse create(@RequestBody @Valid BookResponse response) {
 
-        System.out.println(response);
+        log.debug("Creating book {}", response);
         Book book = response.toModelBook();
         book = service.save(book);
 
         BookResponse responseBook = book.toResponseBook();
-        System.out.println(responseBook);
+        log.debug("Created book {} with id {}", responseBook, book.getId());
         return responseBook;
     }
 
+    /* O array é lido elemento a elemento com o JsonParser em vez de ser convertido inteiro em uma lista.
+    Um elemento que não é um livro vira uma linha rejeitada; JSON malformado interrompe a importação */
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void createBatch(InputStream body, HttpServletResponse response) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(body);
+        if (nextToken(parser) != JsonToken.START_ARRAY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of books");
+        }
+        BatchImport batch = new BatchImport(response);
+        try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    batch.add(mapper.treeToValue(node, BookResponse.class));
+                } catch (JsonProcessingException ex) {
+                    batch.reject(ex.getOriginalMessage());
+                }
+            }
+        } catch (JsonParseException ex) {
+            if (response.isCommitted()) {
+                throw ex;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getOriginalMessage());
+        }
+        batch.finish();
+    }
+
+    private static JsonToken nextToken(JsonParser parser) throws IOException {
+        try {
+            return parser.nextToken();
+        } catch (JsonParseException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getOriginalMessage());
+        }
+    }
+
+    @PostMapping(value = "batch", consumes = NDJSON)
+    public void createBatchNdjson(InputStream body, HttpServletResponse response) throws IOException {
+        BatchImport batch = new BatchImport(response);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(mapper.readValue(line, BookResponse.class));
+            } catch (JsonProcessingException ex) {
+                batch.reject(ex.getOriginalMessage());
+            }
+        }
+        batch.finish();
+    }
+
+    /* Linhas são gravadas em blocos de IMPORT_CHUNK_SIZE e o resultado de cada bloco é escrito na resposta
+    antes do próximo, assim só um bloco fica em memória independente do tamanho da importação.
+    Depois do primeiro bloco a resposta já foi enviada: um erro no meio deixa o array incompleto
+    e o cliente identifica pelos índices recebidos até onde a importação chegou */
+    private class BatchImport {
+
+        private final HttpServletResponse response;
+
+        private final List<BookResponse> responses = new ArrayList<>();
+
+        private final List<String> errors = new ArrayList<>();
+
+        private JsonGenerator generator;
+
+        private int offset;
+
+        BatchImport(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        void add(BookResponse book) throws IOException {
+            append(book, validate(book));
+        }
+
+        void reject(String error) throws IOException {
+            append(null, error);
+        }
+
+        private void append(BookResponse book, String error) throws IOException {
+            responses.add(book);
+            errors.add(error);
+            if (responses.size() == IMPORT_CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (generator == null) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                generator = mapper.getFactory().createGenerator(response.getOutputStream());
+                generator.writeStartArray();
+            }
+            for (BookBatchResponse result : importBooks(offset, responses, errors)) {
+                generator.writeObject(result);
+            }
+            generator.flush();
+            offset += responses.size();
+            responses.clear();
+            errors.clear();
+        }
+
+        void finish() throws IOException {
+            flush();
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    private List<BookBatchResponse> importBooks(int offset, List<BookResponse> responses, List<String> errors) {
+        BookBatchResponse[] results = new BookBatchResponse[responses.size()];
+        List<Book> books = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        for (int i = 0; i < responses.size(); i++) {
+            if (errors.get(i) != null) {
+                BookResponse response = responses.get(i);
+                results[i] = BookBatchResponse.rejected(offset + i, response == null ? null : response.getIsbn(),
+                        errors.get(i));
+            } else {
+                books.add(responses.get(i).toModelBook());
+                indexes.add(i);
+            }
+        }
+
+        if (!books.isEmpty()) {
+            for (BookBatchResponse result : service.saveAll(books)) {
+                int index = indexes.get(result.getIndex());
+                results[index] = new BookBatchResponse(offset + index, result.getIsbn(), result.getId(),
+                        result.isAccepted(), result.getError());
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private String validate(BookResponse response) {
+        if (response == null) {
+            return NULL_BOOK;
+        }
+        Set<ConstraintViolation<BookResponse>> violations = validator.validate(response);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
     @GetMapping("{id}")
-    public BookResponse get(@PathVariable Long id) {
+    public ResponseEntity<BookResponse> get(@PathVariable Long id) {
 
-        return service.getById(id).map(book -> book.toResponseBook())
+        Book book = service.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        return withETag(book);
+    }
+
+    /* Substitui N chamadas a GET /api/books/{id}; cada posição da resposta corresponde
+    ao id pedido na mesma posição, com found=false para os que não existem */
+    @GetMapping(params = "ids")
+    public List<BookLookupResponse> getAll(@RequestParam List<Long> ids) {
+        return lookup(ids);
+    }
+
+    /* Mesma consulta do getAll para listas que não cabem na URL */
+    @PostMapping(value = "_mget", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BookLookupResponse> mget(@RequestBody List<Long> ids) {
+        return lookup(ids);
+    }
+
+    private List<BookLookupResponse> lookup(List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_IDS + " ids per request");
+        }
+        List<Optional<Book>> books = service.getByIds(ids);
+
+        List<BookLookupResponse> responses = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            responses.add(books.get(i)
+                    .map(BookLookupResponse::found)
+                    .orElseGet(() -> BookLookupResponse.notFound(id)));
+        }
+        return responses;
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable @NotBlank @Valid Long id) {
-        Book book = service.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-
-        service.delete(book.getId());
+        if (!service.deleteById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
     }
 
     @PutMapping("{id}")
-    public BookResponse update(@PathVariable Long id, @RequestBody BookResponse response) {
+    public ResponseEntity<BookResponse> update(@PathVariable Long id,
+                                               @RequestBody @Validated(BookResponse.Update.class)
+                                                       BookResponse response,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                       String ifMatch) {
 
-        System.out.println(response);
-        Book book = service.getById(id)
+        log.debug("Updating book {} with {}", id, response);
+        Book book = service.updateById(id, response.getTitle(), response.getAuthor(), version(ifMatch))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        System.out.println(book);
-        book.setTitle(response.getTitle());
-        book.setAuthor(response.getAuthor());
-        book = service.update(book);
-        BookResponse bookResponse = book.toResponseBook();
-        System.out.println(bookResponse);
-        return bookResponse;
+        log.debug("Updated book {}", book);
+        return withETag(book);
+    }
+
+    private ResponseEntity<BookResponse> withETag(Book book) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (book.getVersion() != null) {
+            builder.eTag(book.getVersion().toString());
+        }
+        return builder.body(book.toResponseBook());
+    }
+
+    private static Long version(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Invalid If-Match header");
+        }
     }
 
     @GetMapping
     public Page<BookResponse> find(BookResponse response, Pageable page) {
-        Book book = response.toModelBook();
-        Page<Book> bookPage = service.find(book, page);
+        return service.findResponses(response.toModelBook(), page);
+    }
+
+    @GetMapping("seek")
+    public BookSliceResponse seek(@RequestParam(required = false) String title,
+                                  @RequestParam(required = false) String author,
+                                  @RequestParam(required = false) String isbn,
+                                  @RequestParam(defaultValue = BookCursor.SORT_BY_ID) String sort,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "20") int size,
+                                  @RequestParam(defaultValue = "false") boolean count) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        BookCursor after;
+        try {
+            after = cursor == null ? BookCursor.first(sort) : BookCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
 
-        List<BookResponse> bookResponses = bookPage.getContent().stream()
+        Book book = new Book(title, author, isbn);
+        Slice<Book> slice = service.findAfter(book, after, size);
+
+        List<BookResponse> bookResponses = slice.getContent().stream()
                 .map(bookModel -> bookModel.toResponseBook())
                 .collect(Collectors.toList());
 
-        return new PageImpl<BookResponse>(bookResponses,
-                page, bookPage.getTotalElements());
+        String next = null;
+        if (slice.hasNext()) {
+            Book last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = BookCursor.after(after.getSort(), last).encode();
+        }
 
+        return new BookSliceResponse(bookResponses, next, count ? service.count(book) : null);
+    }
 
+    @GetMapping("search")
+    public List<BookResponse> search(@RequestParam("q") String query,
+                                     @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return service.search(query, size).stream()
+                .map(book -> book.toResponseBook())
+                .collect(Collectors.toList());
     }
 
-}
+    @GetMapping(value = "export", produces = NDJSON)
+    public WebAsyncTask<Void> exportNdjson(HttpServletResponse response) {
+        return export(response, NDJSON, null, (writer, book) -> {
+            writer.write(mapper.writeValueAsString(book));
+            writer.write('\n');
+        });
+    }
 
+    @GetMapping(value = "export", produces = CSV)
+    public WebAsyncTask<Void> exportCsv(HttpServletResponse response) {
+        return export(response, CSV, "title,author,isbn\n", (writer, book) -> {
+            writer.write(csv(book.getTitle()));
+            writer.write(',');
+            writer.write(csv(book.getAuthor()));
+            writer.write(',');
+            writer.write(csv(book.getIsbn()));
+            writer.write('\n');
+        });
+    }
+
+    /* A exportação completa do catálogo leva bem mais que o timeout das requisições assíncronas
+    e a resposta já foi enviada quando ele expira, então o cliente receberia o arquivo truncado.
+    Por isso ela roda no exportExecutor com o próprio library.export.timeout */
+    private WebAsyncTask<Void> export(HttpServletResponse response, String contentType, String header,
+                                      RowWriter rowWriter) {
+        response.setContentType(contentType);
+        Callable<Void> body = () -> {
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            if (header != null) {
+                writer.write(header);
+            }
+            service.export(book -> {
+                try {
+                    rowWriter.write(writer, book.toResponseBook());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.flush();
+            return null;
+        };
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), exportExecutor, body);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void write(Writer writer, BookResponse response) throws IOException;
+    }
+}
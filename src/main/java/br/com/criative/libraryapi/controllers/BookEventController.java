@@ -0,0 +1,86 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import br.com.criative.libraryapi.services.BookChangeBroadcaster;
+import br.com.criative.libraryapi.services.BookEventRelay;
+import br.com.criative.libraryapi.services.BookEventSink;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/* Consumidores leem os eventos depois do último offset processado, no lugar de varrer o catálogo
+com GET /api/books. Uma lista vazia indica que não há eventos novos.
+Os offsets são do sink da instância que relaya o outbox, então as outras respondem 503 e o
+balanceador deve mandar estes caminhos para ela */
+@RestController
+@RequestMapping("/api/books")
+public class BookEventController {
+
+    static final int MAX_LIMIT = 1000;
+
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final BookEventSink sink;
+
+    private final BookChangeBroadcaster broadcaster;
+
+    private final BookEventRelay relay;
+
+    public BookEventController(BookEventSink sink, BookChangeBroadcaster broadcaster, BookEventRelay relay) {
+        this.sink = sink;
+        this.broadcaster = broadcaster;
+        this.relay = relay;
+    }
+
+    @GetMapping("events")
+    public List<BookEventResponse> read(@RequestParam(defaultValue = "0") long after,
+                                        @RequestParam(defaultValue = "100") int limit) {
+        if (after < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "After must not be negative");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+        requireRelay();
+        requireKnown(after);
+        return sink.read(after, limit);
+    }
+
+    /* Mesmos eventos enviados por Server-Sent Events. O id de cada evento é o offset,
+    e o EventSource do navegador o devolve em Last-Event-ID ao reconectar */
+    @GetMapping(value = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+        requireRelay();
+        if (lastEventId != null) {
+            requireKnown(lastEventId);
+        }
+        return broadcaster.subscribe(lastEventId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many change subscribers"));
+    }
+
+    private void requireRelay() {
+        if (!relay.isLeader()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Book events are served by the instance holding the relay lease");
+        }
+    }
+
+    /* Um offset à frente do último publicado veio de outro log, por exemplo um arquivo do FileBookEventSink
+    apagado. Sem o erro o consumidor receberia listas vazias e perderia tudo até o log alcançar o offset */
+    private void requireKnown(long offset) {
+        long lastOffset = sink.lastOffset();
+        if (offset > lastOffset) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Offset " + offset
+                    + " is ahead of the event log (last offset " + lastOffset + "), restart from 0");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.responses.BookCreationStatus;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BookWriteBehind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.validation.Valid;
+
+/* Com library.write-behind.enabled, POST /api/books com "Prefer: respond-async" responde 202
+e o livro é gravado depois; sem o cabeçalho a criação continua síncrona pelo BookController */
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnProperty(name = "library.write-behind.enabled", havingValue = "true")
+public class BookWriteBehindController {
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteBehindController.class);
+
+    static final String PREFER = "Prefer";
+
+    static final String RESPOND_ASYNC = "respond-async";
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final BookWriteBehind writeBehind;
+
+    public BookWriteBehindController(BookWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    @PostMapping(headers = PREFER + "=" + RESPOND_ASYNC)
+    public ResponseEntity<BookCreationStatus> create(@RequestBody @Valid BookResponse response,
+                                                     UriComponentsBuilder uri) {
+
+        log.debug("Queueing book {}", response);
+        return writeBehind.submit(response.toModelBook())
+                .map(status -> ResponseEntity.accepted()
+                        .location(uri.path("/api/books/creations/{id}").buildAndExpand(status.getId()).toUri())
+                        .header("Preference-Applied", RESPOND_ASYNC)
+                        .body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                        .build());
+    }
+
+    @GetMapping("creations/{id}")
+    public BookCreationStatus status(@PathVariable String id) {
+        return writeBehind.status(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
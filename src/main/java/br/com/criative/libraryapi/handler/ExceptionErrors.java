@@ -1,5 +1,6 @@
 package br.com.criative.libraryapi.handler;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 
 import java.util.ArrayList;
@@ -21,6 +22,14 @@ public class ExceptionErrors {
         this.errors = Arrays.asList(ex.getMessage());
     }
 
+    public ExceptionErrors(OptimisticLockingFailureException ex) {
+        this.errors = Arrays.asList(ex.getMessage());
+    }
+
+    public ExceptionErrors(String error) {
+        this.errors = Arrays.asList(error);
+    }
+
     public List<String> getErrors() {
         return errors;
     }
@@ -1,19 +1,36 @@
 package br.com.criative.libraryapi.handler;
 
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class Handler {
 
+    static final String VALIDATION_FAILURES = "books.validation.failures";
+
+    static final String REJECTED_REQUESTS = "books.requests.rejected";
+
+    static final String BUSY = "Servidor ocupado, tente novamente em instantes";
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ExceptionErrors handle(MethodArgumentNotValidException ex) {
         BindingResult bindingResult = ex.getBindingResult();
+        bindingResult.getFieldErrors().forEach(error ->
+                Metrics.counter(VALIDATION_FAILURES, "field", error.getField()).increment());
         return new ExceptionErrors(bindingResult);
     }
 
@@ -22,4 +39,22 @@ public class Handler {
     public ExceptionErrors handleIsbn(IsbnException ex) {
         return new ExceptionErrors(ex);
     }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ExceptionErrors handleVersion(OptimisticLockingFailureException ex) {
+        return new ExceptionErrors(ex);
+    }
+
+    /* Pool e fila de um executor limitado estão cheios, por exemplo o exportExecutor.
+    Como a fila cheia do write-behind, o cliente deve tentar de novo mais tarde.
+    O tipo é fixado porque a exportação já definiu NDJSON ou CSV na resposta antes de ser recusada */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ExceptionErrors> handleRejected(RejectedExecutionException ex) {
+        Metrics.counter(REJECTED_REQUESTS).increment();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ExceptionErrors(BUSY));
+    }
 }
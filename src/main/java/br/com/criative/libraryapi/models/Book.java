@@ -7,12 +7,15 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 
 @Entity
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -22,6 +25,9 @@ public class Book {
     @NotBlank
     private String isbn;
 
+    @Version
+    private Long version;
+
     public Book(String title, String author, String isbn) {
         this.title = title;
         this.author = author;
@@ -35,6 +41,14 @@ public class Book {
         this.isbn = isbn;
     }
 
+    public Book(Long id, String title, String author, String isbn, Long version) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.version = version;
+    }
+
     public Book() {
     }
 
@@ -58,6 +72,10 @@ public class Book {
         return isbn;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void setTitle(String title) {
         this.title = title;
     }
@@ -73,6 +91,7 @@ public class Book {
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", isbn='" + isbn + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,113 @@
+package br.com.criative.libraryapi.models;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import java.time.Instant;
+
+/* Registro do outbox: uma linha por alteração de livro, com o estado do livro depois dela.
+Exclusões levam apenas o id do livro */
+@Entity
+public class BookEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_event_seq")
+    @SequenceGenerator(name = "book_event_seq", sequenceName = "book_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+
+    private Long version;
+
+    private Instant createdAt;
+
+    public BookEvent() {
+    }
+
+    public BookEvent(Type type, Long bookId, String title, String author, String isbn, Long version) {
+        this.type = type;
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.version = version;
+        this.createdAt = Instant.now();
+    }
+
+    public static BookEvent created(Book book) {
+        return of(Type.CREATED, book);
+    }
+
+    public static BookEvent updated(Book book) {
+        return of(Type.UPDATED, book);
+    }
+
+    public static BookEvent deleted(Long bookId) {
+        return new BookEvent(Type.DELETED, bookId, null, null, null, null);
+    }
+
+    private static BookEvent of(Type type, Book book) {
+        return new BookEvent(type, book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BookEvent{" +
+                "id=" + id +
+                ", type=" + type +
+                ", bookId=" + bookId +
+                ", isbn='" + isbn + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.criative.libraryapi.repositories;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookEventRepository extends JpaRepository<BookEvent, Long> {
+
+    /* Sem transação somente leitura de propósito: o outbox deve ser lido no primário,
+    em uma réplica atrasada o relay publicaria de novo eventos já apagados */
+    @Query("select e from BookEvent e order by e.id")
+    List<BookEvent> findPending(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BookEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /* Renova a lease do dono atual ou assume uma lease vencida. Retorna 1 quando owner ficou com ela */
+    @Transactional
+    @Modifying
+    @Query(value = "update book_event_relay set owner = :owner, expires_at = :expiresAt "
+            + "where id = 1 and (owner = :owner or expires_at < :now)", nativeQuery = true)
+    int acquireRelay(@Param("owner") String owner, @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+}
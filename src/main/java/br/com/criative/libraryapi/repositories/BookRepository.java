@@ -1,9 +1,100 @@
 package br.com.criative.libraryapi.repositories;
 
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 
     boolean existsByIsbn(String isbn);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1" +
+            " where b.id = :id")
+    int updateTitleAndAuthor(@Param("id") Long id,
+                             @Param("title") String title,
+                             @Param("author") String author);
+
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1" +
+            " where b.id = :id and b.version = :version")
+    int updateTitleAndAuthorIfVersion(@Param("id") Long id,
+                                      @Param("title") String title,
+                                      @Param("author") String author,
+                                      @Param("version") Long version);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    @Query("select b from Book b" +
+            " where lower(b.title) like lower(concat('%', :title, '%')) escape '\\'" +
+            " and lower(b.author) like lower(concat('%', :author, '%')) escape '\\'" +
+            " and lower(b.isbn) like lower(concat('%', :isbn, '%')) escape '\\'" +
+            " and b.id > :lastId" +
+            " order by b.id")
+    Slice<Book> findNextById(@Param("title") String title,
+                             @Param("author") String author,
+                             @Param("isbn") String isbn,
+                             @Param("lastId") Long lastId,
+                             Pageable pageable);
+
+    @Query("select b from Book b" +
+            " where lower(b.title) like lower(concat('%', :title, '%')) escape '\\'" +
+            " and lower(b.author) like lower(concat('%', :author, '%')) escape '\\'" +
+            " and lower(b.isbn) like lower(concat('%', :isbn, '%')) escape '\\'" +
+            " and (b.title > :lastTitle or (b.title = :lastTitle and b.id > :lastId))" +
+            " order by b.title, b.id")
+    Slice<Book> findNextByTitle(@Param("title") String title,
+                                @Param("author") String author,
+                                @Param("isbn") String isbn,
+                                @Param("lastTitle") String lastTitle,
+                                @Param("lastId") Long lastId,
+                                Pageable pageable);
+
+    /* Projeção direta no BookResponse: nenhuma entidade entra no contexto de persistência,
+    então não há snapshot para dirty checking nem flush antes da consulta */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(value = "select new br.com.criative.libraryapi.responses.BookResponse(b.title, b.author, b.isbn)" +
+            " from Book b" +
+            " where lower(b.title) like lower(concat('%', :title, '%')) escape '\\'" +
+            " and lower(b.author) like lower(concat('%', :author, '%')) escape '\\'" +
+            " and lower(b.isbn) like lower(concat('%', :isbn, '%')) escape '\\'",
+            countQuery = "select count(b) from Book b" +
+                    " where lower(b.title) like lower(concat('%', :title, '%')) escape '\\'" +
+                    " and lower(b.author) like lower(concat('%', :author, '%')) escape '\\'" +
+                    " and lower(b.isbn) like lower(concat('%', :isbn, '%')) escape '\\'")
+    Page<BookResponse> findResponses(@Param("title") String title,
+                                     @Param("author") String author,
+                                     @Param("isbn") String isbn,
+                                     Pageable pageable);
 }
@@ -0,0 +1,64 @@
+package br.com.criative.libraryapi.responses;
+
+public class BookBatchResponse {
+
+    private int index;
+
+    private String isbn;
+
+    private Long id;
+
+    private boolean accepted;
+
+    private String error;
+
+    public BookBatchResponse() {
+    }
+
+    public BookBatchResponse(int index, String isbn, Long id, boolean accepted, String error) {
+        this.index = index;
+        this.isbn = isbn;
+        this.id = id;
+        this.accepted = accepted;
+        this.error = error;
+    }
+
+    public static BookBatchResponse accepted(int index, String isbn, Long id) {
+        return new BookBatchResponse(index, isbn, id, true, null);
+    }
+
+    public static BookBatchResponse rejected(int index, String isbn, String error) {
+        return new BookBatchResponse(index, isbn, null, false, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BookBatchResponse{" +
+                "index=" + index +
+                ", isbn='" + isbn + '\'' +
+                ", id=" + id +
+                ", accepted=" + accepted +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
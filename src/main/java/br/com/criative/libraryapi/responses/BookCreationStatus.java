@@ -0,0 +1,75 @@
+package br.com.criative.libraryapi.responses;
+
+public class BookCreationStatus {
+
+    public enum State {
+        PENDING, CREATED, REJECTED, FAILED
+    }
+
+    private String id;
+
+    private State state;
+
+    private String isbn;
+
+    private Long bookId;
+
+    private String error;
+
+    public BookCreationStatus() {
+    }
+
+    public BookCreationStatus(String id, State state, String isbn, Long bookId, String error) {
+        this.id = id;
+        this.state = state;
+        this.isbn = isbn;
+        this.bookId = bookId;
+        this.error = error;
+    }
+
+    public static BookCreationStatus pending(String id, String isbn) {
+        return new BookCreationStatus(id, State.PENDING, isbn, null, null);
+    }
+
+    public static BookCreationStatus of(String id, BookBatchResponse result) {
+        if (result.isAccepted()) {
+            return new BookCreationStatus(id, State.CREATED, result.getIsbn(), result.getId(), null);
+        }
+        return new BookCreationStatus(id, State.REJECTED, result.getIsbn(), null, result.getError());
+    }
+
+    public static BookCreationStatus failed(String id, String isbn, String error) {
+        return new BookCreationStatus(id, State.FAILED, isbn, null, error);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCreationStatus{" +
+                "id='" + id + '\'' +
+                ", state=" + state +
+                ", isbn='" + isbn + '\'' +
+                ", bookId=" + bookId +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
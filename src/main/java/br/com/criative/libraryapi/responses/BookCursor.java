@@ -0,0 +1,76 @@
+package br.com.criative.libraryapi.responses;
+
+import br.com.criative.libraryapi.models.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class BookCursor {
+
+    public static final String SORT_BY_ID = "id";
+
+    public static final String SORT_BY_TITLE = "title";
+
+    private final String sort;
+
+    private final Long id;
+
+    private final String title;
+
+    public BookCursor(String sort, Long id, String title) {
+        if (!SORT_BY_ID.equals(sort) && !SORT_BY_TITLE.equals(sort)) {
+            throw new IllegalArgumentException("Sort must be id or title");
+        }
+        this.sort = sort;
+        this.id = id;
+        this.title = title;
+    }
+
+    public static BookCursor first(String sort) {
+        return new BookCursor(sort, 0L, "");
+    }
+
+    public static BookCursor after(String sort, Book book) {
+        return new BookCursor(sort, book.getId(), book.getTitle());
+    }
+
+    public static BookCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new BookCursor(parts[0], Long.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    public String encode() {
+        String value = sort + "|" + id + "|" + title;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCursor{" +
+                "sort='" + sort + '\'' +
+                ", id=" + id +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.criative.libraryapi.responses;
+
+import br.com.criative.libraryapi.models.BookEvent;
+
+import java.time.Instant;
+
+/* Evento como visto pelos consumidores. O offset é atribuído pelo sink na ordem de publicação
+e serve para retomar a leitura; eventId identifica o evento caso ele seja entregue mais de uma vez */
+public class BookEventResponse {
+
+    private long offset;
+
+    private Long eventId;
+
+    private String type;
+
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+
+    private Long version;
+
+    private Instant occurredAt;
+
+    public BookEventResponse() {
+    }
+
+    public BookEventResponse(long offset, Long eventId, String type, Long bookId, String title, String author,
+                             String isbn, Long version, Instant occurredAt) {
+        this.offset = offset;
+        this.eventId = eventId;
+        this.type = type;
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.version = version;
+        this.occurredAt = occurredAt;
+    }
+
+    public static BookEventResponse of(long offset, BookEvent event) {
+        return new BookEventResponse(offset, event.getId(), event.getType().name(), event.getBookId(),
+                event.getTitle(), event.getAuthor(), event.getIsbn(), event.getVersion(), event.getCreatedAt());
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BookEventResponse{" +
+                "offset=" + offset +
+                ", eventId=" + eventId +
+                ", type='" + type + '\'' +
+                ", bookId=" + bookId +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.criative.libraryapi.responses;
+
+import br.com.criative.libraryapi.models.Book;
+
+public class BookLookupResponse {
+
+    private Long id;
+
+    private boolean found;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+
+    public BookLookupResponse() {
+    }
+
+    public BookLookupResponse(Long id, boolean found, String title, String author, String isbn) {
+        this.id = id;
+        this.found = found;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+    }
+
+    public static BookLookupResponse found(Book book) {
+        return new BookLookupResponse(book.getId(), true, book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    public static BookLookupResponse notFound(Long id) {
+        return new BookLookupResponse(id, false, null, null, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String toString() {
+        return "BookLookupResponse{" +
+                "id=" + id +
+                ", found=" + found +
+                ", title='" + title + '\'' +
+                ", author='" + author + '\'' +
+                ", isbn='" + isbn + '\'' +
+                '}';
+    }
+}
@@ -3,12 +3,18 @@ package br.com.criative.libraryapi.responses;
 import br.com.criative.libraryapi.models.Book;
 import org.hibernate.validator.constraints.NotBlank;
 
+import javax.validation.groups.Default;
+
 public class BookResponse {
 
-    @NotBlank
+    /* Grupo validado no PUT, que altera apenas título e autor */
+    public interface Update {
+    }
+
+    @NotBlank(groups = {Default.class, Update.class})
     private String title;
 
-    @NotBlank
+    @NotBlank(groups = {Default.class, Update.class})
     private String author;
 
     @NotBlank
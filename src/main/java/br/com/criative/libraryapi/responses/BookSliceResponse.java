@@ -0,0 +1,42 @@
+package br.com.criative.libraryapi.responses;
+
+import java.util.List;
+
+public class BookSliceResponse {
+
+    private List<BookResponse> content;
+
+    private String next;
+
+    private Long totalElements;
+
+    public BookSliceResponse() {
+    }
+
+    public BookSliceResponse(List<BookResponse> content, String next, Long totalElements) {
+        this.content = content;
+        this.next = next;
+        this.totalElements = totalElements;
+    }
+
+    public List<BookResponse> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    @Override
+    public String toString() {
+        return "BookSliceResponse{" +
+                "content=" + content +
+                ", next='" + next + '\'' +
+                ", totalElements=" + totalElements +
+                '}';
+    }
+}
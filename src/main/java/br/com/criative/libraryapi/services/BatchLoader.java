@@ -0,0 +1,103 @@
+package br.com.criative.libraryapi.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/* Junta as chaves distintas pedidas dentro de uma janela curta em uma única chamada ao loader.
+A primeira thread de cada lote é a líder: espera a janela, ou o lote encher, e executa a consulta
+na própria thread, completando a espera das demais. Não há thread extra nem fila a dimensionar.
+Usa ReentrantLock em vez de synchronized para não prender a thread de plataforma com threads virtuais */
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Map<K, V>> loader;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition full = lock.newCondition();
+
+    private Map<K, CompletableFuture<Optional<V>>> current;
+
+    public BatchLoader(Function<List<K>, Map<K, V>> loader, Duration window, int maxBatchSize) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        this.loader = loader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Optional<V> load(K key) {
+        Map<K, CompletableFuture<Optional<V>>> batch;
+        CompletableFuture<Optional<V>> future;
+        boolean leader = false;
+
+        lock.lock();
+        try {
+            if (current == null) {
+                current = new LinkedHashMap<>();
+                leader = true;
+            }
+            batch = current;
+            future = batch.computeIfAbsent(key, ignored -> new CompletableFuture<>());
+            if (batch.size() >= maxBatchSize) {
+                current = null;
+                full.signalAll();
+            }
+            if (leader) {
+                awaitWindow(batch);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            dispatch(batch);
+        }
+        return SingleFlight.await(future);
+    }
+
+    /* Chamado com o lock: libera o lock enquanto espera e fecha o lote ao final da janela */
+    private void awaitWindow(Map<K, CompletableFuture<Optional<V>>> batch) {
+        long remaining = windowNanos;
+        boolean interrupted = false;
+        while (current == batch && remaining > 0) {
+            try {
+                remaining = full.awaitNanos(remaining);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+                break;
+            }
+        }
+        if (current == batch) {
+            current = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<Optional<V>>> batch) {
+        try {
+            Map<K, V> values = loader.apply(Collections.unmodifiableList(new ArrayList<>(batch.keySet())));
+            batch.forEach((key, future) -> future.complete(Optional.ofNullable(values.get(key))));
+        } catch (RuntimeException | Error ex) {
+            batch.values().forEach(future -> future.completeExceptionally(ex));
+        }
+    }
+}
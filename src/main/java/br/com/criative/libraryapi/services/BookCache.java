@@ -0,0 +1,119 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/* Guarda cópias: o Book é uma entidade mutável e quem recebe do cache pode alterá-la antes do commit.
+A carga acontece dentro do get atômico do Caffeine, e o evict de um id espera a carga em andamento
+desse id terminar, assim um livro lido antes de um delete não volta para o cache depois do evict.
+Cargas em lote ficam fora desse get e só entram no cache se nenhuma escrita aconteceu durante a consulta */
+@Component
+public class BookCache implements MeterBinder {
+
+    private final Cache<Long, Book> books;
+
+    private final Cache<String, Long> isbns;
+
+    private long writes;
+
+    public BookCache(@Value("${library.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${library.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.books = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.isbns = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> getById(Long id, Function<Long, Optional<Book>> loader) {
+        Book cached = books.get(id, key -> loader.apply(key)
+                .map(book -> {
+                    if (book.getIsbn() != null) {
+                        isbns.put(book.getIsbn(), key);
+                    }
+                    return copy(book);
+                })
+                .orElse(null));
+        return Optional.ofNullable(cached).map(BookCache::copy);
+    }
+
+    public Optional<Book> get(Long id) {
+        return Optional.ofNullable(books.getIfPresent(id)).map(BookCache::copy);
+    }
+
+    /* O isbn só conta enquanto o livro correspondente estiver no cache. Assim evict não precisa
+    procurar o isbn de um livro que já saiu do cache, e a entrada órfã apenas expira */
+    public boolean containsIsbn(String isbn) {
+        if (isbn == null) {
+            return false;
+        }
+        Long id = isbns.getIfPresent(isbn);
+        if (id == null) {
+            return false;
+        }
+        Book cached = books.getIfPresent(id);
+        return cached != null && isbn.equals(cached.getIsbn());
+    }
+
+    /* Para escritas já confirmadas no banco */
+    public synchronized void put(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        writes++;
+        store(book);
+    }
+
+    public synchronized long writes() {
+        return writes;
+    }
+
+    /* Livros lidos com writes() igual a since. Se alguma escrita aconteceu depois, eles podem ser anteriores a ela */
+    public synchronized void putLoaded(Collection<Book> loaded, long since) {
+        if (writes != since) {
+            return;
+        }
+        loaded.forEach(this::store);
+    }
+
+    private void store(Book book) {
+        books.put(book.getId(), copy(book));
+        if (book.getIsbn() != null) {
+            isbns.put(book.getIsbn(), book.getId());
+        }
+    }
+
+    public synchronized void evict(Long id) {
+        writes++;
+        Book cached = books.asMap().remove(id);
+        if (cached != null && cached.getIsbn() != null) {
+            isbns.asMap().remove(cached.getIsbn(), id);
+        }
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, books, "books");
+        CaffeineCacheMetrics.monitor(registry, isbns, "books.isbn");
+    }
+}
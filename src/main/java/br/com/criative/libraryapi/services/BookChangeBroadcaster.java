@@ -0,0 +1,296 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Envia por Server-Sent Events os eventos publicados pelo BookEventRelay.
+Um cliente parado não ocupa thread: só a conexão assíncrona e uma fila limitada, alocada sob demanda.
+Poucas threads escrevem nas conexões que têm algo na fila. Um cliente lento cuja fila enche é desconectado
+em vez de atrasar os demais; ao reconectar com Last-Event-ID ele recebe o que perdeu a partir do sink.
+A escrita no socket é bloqueante: um cliente que parou de ler prende a thread até o timeout de escrita do container.
+Quando uma escrita passa de write-timeout o cliente é desconectado e o pool ganha uma thread enquanto ela estiver presa */
+@Component
+public class BookChangeBroadcaster implements MeterBinder, DisposableBean {
+
+    static final String DROPPED = "books.changes.dropped";
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeBroadcaster.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final BookEventSink sink;
+
+    private final int bufferSize;
+
+    private final long timeoutMillis;
+
+    private final int maxSubscribers;
+
+    private final long writeTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor writers;
+
+    public BookChangeBroadcaster(BookEventSink sink,
+                                 @Value("${library.changes.buffer-size:256}") int bufferSize,
+                                 @Value("${library.changes.timeout:30m}") Duration timeout,
+                                 @Value("${library.changes.max-subscribers:10000}") int maxSubscribers,
+                                 @Value("${library.changes.writer-threads:2}") int writerThreads,
+                                 @Value("${library.changes.write-timeout:5s}") Duration writeTimeout) {
+        this.sink = sink;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "book-changes-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /* Vazio quando o limite de conexões foi atingido. Com lastEventId os eventos depois dele
+    são lidos do sink antes dos novos */
+    public Optional<SseEmitter> subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, lastEventId, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (lastEventId != null) {
+            schedule(subscriber);
+        }
+        return Optional.of(emitter);
+    }
+
+    @EventListener
+    public void onPublished(BookEventsPublished published) {
+        for (Subscriber subscriber : subscribers) {
+            for (BookEventResponse event : published.getEvents()) {
+                if (!subscriber.queue.offer(event)) {
+                    drop(subscriber, "buffer full");
+                    break;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    /* Mantém a conexão viva através de proxies que encerram conexões ociosas.
+    Se a fila já estiver cheia o cliente tem dados pendentes e o heartbeat é dispensável */
+    @Scheduled(fixedDelayString = "${library.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.offer(HEARTBEAT)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /* A thread presa continua na escrita até o container desistir; a extra mantém os demais clientes andando */
+    @Scheduled(fixedDelayString = "${library.changes.write-check-ms:1000}")
+    public void checkWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            boolean stalled;
+            synchronized (subscriber) {
+                stalled = subscriber.writing && !subscriber.stalled
+                        && now - subscriber.writeStarted > writeTimeoutNanos;
+                if (stalled) {
+                    subscriber.stalled = true;
+                    resize(1);
+                }
+            }
+            if (stalled) {
+                drop(subscriber, "write timed out");
+            }
+        }
+    }
+
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            do {
+                if (subscriber.replayAfter != null) {
+                    replay(subscriber);
+                }
+                Object item;
+                while (!subscriber.closed && (item = subscriber.queue.poll()) != null) {
+                    send(subscriber, item);
+                }
+                subscriber.scheduled.set(false);
+            } while (!subscriber.closed && !subscriber.queue.isEmpty()
+                    && subscriber.scheduled.compareAndSet(false, true));
+        } catch (IOException | RuntimeException ex) {
+            /* Inclui o UncheckedIOException do sink no replay: sem o drop o cliente ficaria com scheduled
+            preso em true, sem receber nada até o timeout do emitter */
+            subscriber.scheduled.set(false);
+            drop(subscriber, ex.getMessage());
+        }
+        if (subscriber.closed) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /* Os eventos que chegarem durante a leitura ficam na fila e os repetidos são ignorados pelo offset */
+    private void replay(Subscriber subscriber) throws IOException {
+        List<BookEventResponse> page;
+        do {
+            page = sink.read(Math.max(subscriber.lastSent, subscriber.replayAfter), bufferSize);
+            for (BookEventResponse event : page) {
+                send(subscriber, event);
+            }
+        } while (page.size() == bufferSize && !subscriber.closed);
+        subscriber.replayAfter = null;
+    }
+
+    private void send(Subscriber subscriber, Object item) throws IOException {
+        if (subscriber.closed) {
+            return;
+        }
+        if (item == HEARTBEAT) {
+            write(subscriber, SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        BookEventResponse event = (BookEventResponse) item;
+        if (event.getOffset() <= subscriber.lastSent) {
+            return;
+        }
+        write(subscriber, SseEmitter.event()
+                .id(String.valueOf(event.getOffset()))
+                .data(event, MediaType.APPLICATION_JSON));
+        subscriber.lastSent = event.getOffset();
+    }
+
+    private void write(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (subscriber) {
+            subscriber.writeStarted = System.nanoTime();
+            subscriber.writing = true;
+        }
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.writing = false;
+                if (subscriber.stalled) {
+                    subscriber.stalled = false;
+                    resize(-1);
+                }
+            }
+        }
+    }
+
+    /* O complete() espera pelo send() em andamento no mesmo emitter, por isso fica a cargo da thread
+    que escreve para esse cliente e quem publica nunca bloqueia */
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Dropping change subscriber at offset {}: {}", subscriber.lastSent, reason);
+            Metrics.counter(DROPPED).increment();
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            schedule(subscriber);
+        }
+    }
+
+    private synchronized void resize(int delta) {
+        int size = writers.getCorePoolSize() + delta;
+        if (delta > 0) {
+            writers.setMaximumPoolSize(size);
+            writers.setCorePoolSize(size);
+        } else {
+            writers.setCorePoolSize(size);
+            writers.setMaximumPoolSize(size);
+        }
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.changes.subscribers", subscribers, Set::size)
+                .description("Open Server-Sent Events connections on /api/books/changes")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Object> queue;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile Long replayAfter;
+
+        private volatile long lastSent;
+
+        private volatile boolean closed;
+
+        private long writeStarted;
+
+        private boolean writing;
+
+        private boolean stalled;
+
+        Subscriber(SseEmitter emitter, Long replayAfter, int bufferSize) {
+            this.emitter = emitter;
+            this.replayAfter = replayAfter;
+            this.queue = new LinkedBlockingQueue<>(bufferSize);
+        }
+    }
+}
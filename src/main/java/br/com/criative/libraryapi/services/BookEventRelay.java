@@ -0,0 +1,97 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.repositories.BookEventRepository;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/* Move os eventos do outbox para o BookEventSink em lotes, na ordem do id.
+Um evento só é apagado do outbox depois de publicado; se a aplicação cair entre as duas etapas
+ele é publicado de novo, então a entrega é pelo menos uma vez e o consumidor deduplica pelo eventId.
+Depois de cada lote os eventos publicados são anunciados com BookEventsPublished.
+Cada instância tem o próprio sink com os próprios offsets, por isso só uma delas relaya: a dona da lease
+em book_event_relay, renovada a cada lote. As demais não leem o outbox e o BookEventController responde 503
+nelas. Se a dona parar, outra assume quando a lease vencer e os consumidores recomeçam pelo sink dela */
+@Component
+public class BookEventRelay {
+
+    static final String RELAYED = "books.events.relayed";
+
+    private static final Logger log = LoggerFactory.getLogger(BookEventRelay.class);
+
+    private final BookEventRepository repository;
+
+    private final BookEventSink sink;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final int batchSize;
+
+    private final Duration lease;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile boolean leader;
+
+    public BookEventRelay(BookEventRepository repository, BookEventSink sink, ApplicationEventPublisher publisher,
+                          @Value("${library.events.relay-batch-size:500}") int batchSize,
+                          @Value("${library.events.relay-lease:30s}") Duration lease) {
+        this.repository = repository;
+        this.sink = sink;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.lease = lease;
+    }
+
+    @Scheduled(fixedDelayString = "${library.events.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to relay book events, retrying on the next run", ex);
+        }
+    }
+
+    public int relayBatch() {
+        if (!holdLease()) {
+            return 0;
+        }
+        List<BookEvent> events = repository.findPending(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        publisher.publishEvent(new BookEventsPublished(sink.publish(events)));
+        repository.deleteByIds(events.stream().map(BookEvent::getId).collect(Collectors.toList()));
+        Metrics.counter(RELAYED).increment(events.size());
+        return events.size();
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    private boolean holdLease() {
+        Instant now = Instant.now();
+        boolean held = repository.acquireRelay(owner, now, now.plus(lease)) == 1;
+        if (held != leader) {
+            log.info(held ? "Acquired the book event relay lease" : "Lost the book event relay lease");
+        }
+        leader = held;
+        return held;
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+
+import java.util.List;
+
+/* Destino dos eventos publicados pelo BookEventRelay, escolhido por library.events.sink.
+Cada evento recebe um offset crescente e os consumidores retomam a leitura
+pedindo os eventos depois do último offset que processaram.
+publish devolve os eventos com os offsets atribuídos */
+public interface BookEventSink {
+
+    List<BookEventResponse> publish(List<BookEvent> events);
+
+    List<BookEventResponse> read(long after, int limit);
+
+    long lastOffset();
+}
@@ -0,0 +1,19 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+
+import java.util.List;
+
+/* Evento da aplicação com um lote que acabou de ser publicado no BookEventSink, já com os offsets */
+public class BookEventsPublished {
+
+    private final List<BookEventResponse> events;
+
+    public BookEventsPublished(List<BookEventResponse> events) {
+        this.events = events;
+    }
+
+    public List<BookEventResponse> getEvents() {
+        return events;
+    }
+}
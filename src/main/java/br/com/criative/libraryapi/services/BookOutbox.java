@@ -0,0 +1,31 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.repositories.BookEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/* Grava os eventos no outbox. Exige a transação da alteração do livro em andamento:
+o evento só existe se a alteração for confirmada, e vice-versa */
+@Component
+public class BookOutbox {
+
+    private final BookEventRepository repository;
+
+    public BookOutbox(BookEventRepository repository) {
+        this.repository = repository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BookEvent event) {
+        repository.save(event);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<BookEvent> events) {
+        repository.saveAll(events);
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/* Índice desta instância, montado na subida e mantido pelas escritas feitas por ela.
+Escritas de outras instâncias e remoções que chegaram fora de ordem só são corrigidas pela reconciliação
+periódica do BookServiceImpl, então entre duas reconciliações o índice pode divergir da tabela */
+@Component
+public class BookSearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+
+    static final int AUTHOR_WEIGHT = 2;
+
+    static final int ISBN_WEIGHT = 4;
+
+    static final int MIN_PREFIX_LENGTH = 3;
+
+    static final int MAX_PREFIX_TERMS = 1000;
+
+    private static final Pattern ISBN = Pattern.compile("[0-9]{9,12}[0-9x]");
+
+    private final ConcurrentNavigableMap<String, ConcurrentMap<Long, Integer>> postings =
+            new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<Long, Set<String>> documents = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    /* index e remove são sincronizados para que duas atualizações do mesmo livro não deixem
+    termos antigos para trás; a busca lê os mapas concorrentes sem bloquear.
+    Os callbacks de commit não seguem a ordem dos commits, por isso uma versão igual ou anterior
+    à indexada é ignorada. Livros sem versão sempre substituem o que estiver indexado */
+    public synchronized void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        Long indexed = versions.get(book.getId());
+        if (indexed != null && book.getVersion() != null && indexed >= book.getVersion()) {
+            return;
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Math::max));
+        tokenize(book.getAuthor()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Math::max));
+        String isbn = normalizeIsbn(book.getIsbn());
+        if (!isbn.isEmpty()) {
+            weights.merge(isbn, ISBN_WEIGHT, Math::max);
+        }
+
+        remove(book.getId());
+        documents.put(book.getId(), weights.keySet());
+        if (book.getVersion() != null) {
+            versions.put(book.getId(), book.getVersion());
+        }
+        weights.forEach((term, weight) -> postings.compute(term, (key, docs) -> {
+            ConcurrentMap<Long, Integer> value = docs == null ? new ConcurrentHashMap<>() : docs;
+            value.put(book.getId(), weight);
+            return value;
+        }));
+    }
+
+    public synchronized void remove(Long id) {
+        versions.remove(id);
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        terms.forEach(term -> postings.computeIfPresent(term, (key, docs) -> {
+            docs.remove(id);
+            return docs.isEmpty() ? null : docs;
+        }));
+    }
+
+    public List<Long> search(String query, int limit) {
+        String isbn = normalizeIsbn(query);
+        Set<String> terms = ISBN.matcher(isbn).matches()
+                ? Collections.singleton(isbn)
+                : new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String term : terms) {
+            Map<Long, Integer> matches = match(term);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((id, score) -> score + matches.get(id));
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public Set<Long> ids() {
+        return new HashSet<>(documents.keySet());
+    }
+
+    /* Termos exatos pontuam o dobro de termos encontrados por prefixo,
+    assim "tolkien" fica à frente de "tolkiens" na busca por "tolkien".
+    Termos curtos só casam exatamente e cada prefixo expande no máximo MAX_PREFIX_TERMS termos,
+    senão uma busca por "a" percorreria quase todo o índice */
+    private Map<Long, Integer> match(String term) {
+        Map<Long, Integer> matches = new HashMap<>();
+        ConcurrentMap<Long, Integer> exact = postings.get(term);
+        if (exact != null) {
+            exact.forEach((id, weight) -> matches.put(id, weight * 2));
+        }
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            return matches;
+        }
+
+        int expanded = 0;
+        for (Map.Entry<String, ConcurrentMap<Long, Integer>> entry
+                : postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+            if (++expanded > MAX_PREFIX_TERMS) {
+                break;
+            }
+            entry.getValue().forEach((id, weight) -> matches.merge(id, weight, Math::max));
+        }
+        return matches;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        return isbn.replaceAll("[\\s-]", "").toLowerCase();
+    }
+}
@@ -1,10 +1,16 @@
 package br.com.criative.libraryapi.services;
 
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCursor;
+import br.com.criative.libraryapi.responses.BookResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -12,9 +18,27 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    List<Optional<Book>> getByIds(List<Long> ids);
+
     void delete(Long id);
 
+    boolean deleteById(Long id);
+
     Book update(Book book);
 
+    Optional<Book> updateById(Long id, String title, String author, Long expectedVersion);
+
     Page<Book> find(Book book, Pageable pages);
+
+    Page<BookResponse> findResponses(Book book, Pageable pages);
+
+    Slice<Book> findAfter(Book book, BookCursor cursor, int size);
+
+    long count(Book book);
+
+    List<BookBatchResponse> saveAll(List<Book> books);
+
+    void export(Consumer<Book> consumer);
+
+    List<Book> search(String query, int size);
 }
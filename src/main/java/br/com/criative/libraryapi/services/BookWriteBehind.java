@@ -0,0 +1,169 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCreationStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/* Criação assíncrona de livros: a requisição só valida e enfileira, e uma thread grava a fila
+em lotes pelo BookService.saveAll, com a mesma checagem de isbn duplicado da importação em lote.
+A fila fica em memória e é limitada; cheia, o pedido é recusado para o cliente tentar mais tarde.
+No desligamento a fila é esvaziada antes de o BookService ser destruído */
+@Component
+@ConditionalOnProperty(name = "library.write-behind.enabled", havingValue = "true")
+public class BookWriteBehind implements MeterBinder, DisposableBean {
+
+    static final String REJECTED = "books.write-behind.rejected";
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteBehind.class);
+
+    private final BookService service;
+
+    private final BlockingQueue<Pending> queue;
+
+    private final int batchSize;
+
+    private final Duration shutdownTimeout;
+
+    private final Cache<String, BookCreationStatus> statuses;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public BookWriteBehind(BookService service,
+                           @Value("${library.write-behind.capacity:10000}") int capacity,
+                           @Value("${library.write-behind.batch-size:500}") int batchSize,
+                           @Value("${library.write-behind.status-ttl:1h}") Duration statusTtl,
+                           @Value("${library.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.service = service;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        /* Cada pedido fica na fila ou no cache, então o cache comporta a fila cheia e os já gravados */
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(Math.max(100_000L, capacity * 10L))
+                .expireAfterWrite(statusTtl)
+                .build();
+        this.writer = new Thread(this::write, "book-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /* Vazio quando a fila está cheia ou a aplicação está desligando */
+    public Optional<BookCreationStatus> submit(Book book) {
+        BookCreationStatus status = BookCreationStatus.pending(UUID.randomUUID().toString(), book.getIsbn());
+        statuses.put(status.getId(), status);
+        if (!running || !queue.offer(new Pending(status.getId(), book))) {
+            statuses.invalidate(status.getId());
+            Metrics.counter(REJECTED).increment();
+            return Optional.empty();
+        }
+        return Optional.of(status);
+    }
+
+    public Optional<BookCreationStatus> status(String id) {
+        return Optional.ofNullable(statuses.getIfPresent(id));
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void write() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                save(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void save(List<Pending> batch) {
+        try {
+            List<BookBatchResponse> results = service.saveAll(batch.stream()
+                    .map(Pending::getBook)
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                statuses.put(batch.get(i).getId(), BookCreationStatus.of(batch.get(i).getId(), results.get(i)));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write {} queued books", batch.size(), ex);
+            for (Pending pending : batch) {
+                statuses.put(pending.getId(),
+                        BookCreationStatus.failed(pending.getId(), pending.getBook().getIsbn(), ex.getMessage()));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.write-behind.queued", queue, BlockingQueue::size)
+                .description("Books accepted with 202 and not yet written")
+                .register(registry);
+    }
+
+    /* Chamado depois que o servidor web parou de aceitar requisições */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            log.warn("Write-behind queue not drained after {}, {} books were not written",
+                    shutdownTimeout, queue.size());
+            writer.interrupt();
+        }
+    }
+
+    static class Pending {
+
+        private final String id;
+
+        private final Book book;
+
+        Pending(String id, Book book) {
+            this.id = id;
+            this.book = book;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        Book getBook() {
+            return book;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* Log de eventos em NDJSON, uma linha por evento, que sobrevive a reinícios.
+A posição de cada linha fica em memória para que a leitura por offset vá direto ao trecho do arquivo.
+Uma linha incompleta no final, deixada por uma queda durante a escrita, é descartada na abertura */
+@Component
+@ConditionalOnProperty(name = "library.events.sink", havingValue = "file")
+public class FileBookEventSink implements BookEventSink, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileBookEventSink.class);
+
+    private final ObjectMapper mapper;
+
+    private final FileChannel channel;
+
+    private final boolean fsync;
+
+    /* positions[i] é o início da linha do offset i + 1; positions[count] é o fim do arquivo */
+    private long[] positions = new long[1024];
+
+    private int count;
+
+    public FileBookEventSink(ObjectMapper mapper,
+                             @Value("${library.events.file.path:book-events.ndjson}") String path,
+                             @Value("${library.events.file.fsync:true}") boolean fsync) throws IOException {
+        this.mapper = mapper;
+        this.fsync = fsync;
+        Path file = Paths.get(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recover();
+        log.info("Opened book event log {} at offset {}", file, count);
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+        long lineStart = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    append(lineStart);
+                    lineStart = position + i + 1;
+                }
+            }
+            position += read;
+        }
+        positions[count] = lineStart;
+        if (lineStart < size) {
+            channel.truncate(lineStart);
+        }
+    }
+
+    private void append(long lineStart) {
+        if (count + 1 >= positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[count++] = lineStart;
+    }
+
+    @Override
+    public synchronized List<BookEventResponse> publish(List<BookEvent> events) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        List<Integer> lengths = new ArrayList<>();
+        List<BookEventResponse> published = new ArrayList<>(events.size());
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                int before = lines.size();
+                BookEventResponse response = BookEventResponse.of(count + i + 1, events.get(i));
+                mapper.writeValue(lines, response);
+                published.add(response);
+                lines.write('\n');
+                lengths.add(lines.size() - before);
+            }
+
+            long position = positions[count];
+            if (channel.size() > position) {
+                channel.truncate(position);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            discardFailedWrite(ex);
+            throw new UncheckedIOException(ex);
+        }
+
+        for (int length : lengths) {
+            long start = positions[count];
+            append(start);
+            positions[count] = start + length;
+        }
+        return published;
+    }
+
+    /* Linhas completas que ficaram no arquivo sem entrar em positions seriam lidas como eventos na
+    próxima abertura; a verificação antes de cada escrita cobre o caso em que este truncate também falha */
+    private void discardFailedWrite(IOException failure) {
+        try {
+            channel.truncate(positions[count]);
+        } catch (IOException ex) {
+            failure.addSuppressed(ex);
+        }
+    }
+
+    @Override
+    public List<BookEventResponse> read(long after, int limit) {
+        long start;
+        long end;
+        int from;
+        int to;
+        synchronized (this) {
+            from = (int) Math.max(0, Math.min(after, count));
+            to = (int) Math.min(count, (long) from + limit);
+            start = positions[from];
+            end = positions[to];
+        }
+        if (from == to) {
+            return new ArrayList<>();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            List<BookEventResponse> events = new ArrayList<>(to - from);
+            for (String line : new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).split("\n")) {
+                events.add(mapper.readValue(line, BookEventResponse.class));
+            }
+            return events;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized long lastOffset() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
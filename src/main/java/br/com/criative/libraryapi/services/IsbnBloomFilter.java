@@ -0,0 +1,138 @@
+package br.com.criative.libraryapi.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class IsbnBloomFilter implements MeterBinder {
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final double falsePositiveRate;
+
+    private final AtomicLong setBits = new AtomicLong();
+
+    private volatile boolean ready;
+
+    public IsbnBloomFilter(@Value("${library.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${library.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public void put(String isbn) {
+        if (isbn == null) {
+            return;
+        }
+        long hash1 = hash(isbn);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            set(index(hash1, hash2, i));
+        }
+    }
+
+    /* Enquanto o filtro não foi carregado a partir da tabela book todo isbn é um possível acerto,
+    dessa forma o banco continua sendo consultado e nenhum isbn existente é ignorado */
+    public boolean mightContain(String isbn) {
+        if (!ready) {
+            return true;
+        }
+        if (isbn == null) {
+            return false;
+        }
+        long hash1 = hash(isbn);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = index(hash1, hash2, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void markReady() {
+        this.ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public double fillRatio() {
+        return (double) setBits.get() / bitSize;
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow(fillRatio(), hashFunctions);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.isbn.filter.fill", this, IsbnBloomFilter::fillRatio)
+                .description("Fraction of bits set in the ISBN Bloom filter")
+                .register(registry);
+        Gauge.builder("books.isbn.filter.fpp", this, IsbnBloomFilter::expectedFalsePositiveRate)
+                .description("Estimated false positive rate of the ISBN Bloom filter, target " + falsePositiveRate)
+                .register(registry);
+    }
+
+    private void set(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+        setBits.incrementAndGet();
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, bitSize);
+    }
+
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
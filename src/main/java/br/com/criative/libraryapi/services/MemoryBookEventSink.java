@@ -0,0 +1,76 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* Mantém os últimos library.events.memory.capacity eventos em um buffer circular.
+Consumidores que ficarem mais atrasados que isso recebem a partir do evento mais antigo ainda guardado
+e percebem a falta pelo offset. Os eventos se perdem quando a aplicação reinicia, mas os offsets não
+recomeçam: partem do instante da inicialização em microssegundos, sempre acima dos da execução anterior.
+Quem retomar com um offset antigo recebe os eventos da nova execução e vê o salto no primeiro offset */
+@Component
+@ConditionalOnProperty(name = "library.events.sink", havingValue = "memory", matchIfMissing = true)
+public class MemoryBookEventSink implements BookEventSink {
+
+    private final BookEventResponse[] events;
+
+    private final long firstOffset;
+
+    private long lastOffset;
+
+    @Autowired
+    public MemoryBookEventSink(@Value("${library.events.memory.capacity:10000}") int capacity) {
+        this(capacity, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    }
+
+    MemoryBookEventSink(int capacity, long startAfter) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.events = new BookEventResponse[capacity];
+        this.firstOffset = startAfter + 1;
+        this.lastOffset = startAfter;
+    }
+
+    @Override
+    public synchronized List<BookEventResponse> publish(List<BookEvent> published) {
+        List<BookEventResponse> result = new ArrayList<>(published.size());
+        for (BookEvent event : published) {
+            lastOffset++;
+            BookEventResponse response = BookEventResponse.of(lastOffset, event);
+            events[index(lastOffset)] = response;
+            result.add(response);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<BookEventResponse> read(long after, int limit) {
+        long oldest = Math.max(firstOffset, lastOffset - events.length + 1);
+        long from = Math.max(after + 1, oldest);
+        long to = Math.min(lastOffset, from + limit - 1);
+
+        List<BookEventResponse> result = new ArrayList<>();
+        for (long offset = from; offset <= to; offset++) {
+            result.add(events[index(offset)]);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long lastOffset() {
+        return lastOffset;
+    }
+
+    private int index(long offset) {
+        return (int) ((offset - firstOffset) % events.length);
+    }
+}
@@ -2,36 +2,235 @@ package br.com.criative.libraryapi.services.impl;
 
 import br.com.criative.libraryapi.handler.IsbnException;
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.models.BookEvent;
 import br.com.criative.libraryapi.repositories.BookRepository;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCursor;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BatchLoader;
+import br.com.criative.libraryapi.services.BookCache;
+import br.com.criative.libraryapi.services.BookOutbox;
+import br.com.criative.libraryapi.services.BookSearchIndex;
 import br.com.criative.libraryapi.services.BookService;
+import br.com.criative.libraryapi.services.IsbnBloomFilter;
+import br.com.criative.libraryapi.services.SingleFlight;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookServiceImpl.class);
+
+    static final int BATCH_SIZE = 500;
+
+    static final String DUPLICATED_ISBN = "Isbn já foi cadastrado";
+
+    static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
     private final BookRepository repository;
 
-    public BookServiceImpl(BookRepository repository) {
+    private final BookSearchIndex searchIndex;
+
+    private final BookCache cache;
+
+    private final IsbnBloomFilter isbnFilter;
+
+    private final BookOutbox outbox;
+
+    private final TransactionOperations transactions;
+
+    private final SingleFlight<Long, Optional<Book>> idLookups = new SingleFlight<>();
+
+    private final SingleFlight<List<Object>, Page<Book>> searches = new SingleFlight<>();
+
+    private final SingleFlight<List<Object>, Page<BookResponse>> responseSearches = new SingleFlight<>();
+
+    private final BatchLoader<Long, Book> batchLoader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /* Com library.lookup.batch-window maior que zero, as faltas de cache do getById
+    que chegam dentro da janela viram um único IN.
+    As escritas usam transactions para gravar o livro e o evento do outbox na mesma transação */
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex, BookCache cache,
+                           IsbnBloomFilter isbnFilter, BookOutbox outbox, TransactionOperations transactions,
+                           @Value("${library.lookup.batch-window:0ms}") Duration batchWindow,
+                           @Value("${library.lookup.max-batch-size:100}") int maxBatchSize) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.cache = cache;
+        this.isbnFilter = isbnFilter;
+        this.outbox = outbox;
+        this.transactions = transactions;
+        this.batchLoader = batchWindow.isZero() ? null : new BatchLoader<>(this::loadAll, batchWindow, maxBatchSize);
+    }
+
+    /* Transação de escrita para ler do primário: o filtro de isbn e o índice de busca
+    não podem começar sem os livros que uma réplica atrasada ainda não recebeu */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void warmUp() {
+        long started = System.currentTimeMillis();
+        export(book -> {
+            searchIndex.index(book);
+            isbnFilter.put(book.getIsbn());
+        });
+        isbnFilter.markReady();
+        log.info("Indexed {} books in {} ms", searchIndex.size(), System.currentTimeMillis() - started);
+    }
+
+    /* Traz para o índice as escritas de outras instâncias e corrige o que chegou fora de ordem.
+    Os ids são lidos antes da varredura para que um livro criado durante ela não seja removido;
+    livros com a versão já indexada não são reprocessados */
+    @Scheduled(fixedDelayString = "${library.search.reconcile-interval-ms:300000}",
+            initialDelayString = "${library.search.reconcile-interval-ms:300000}")
+    @Transactional
+    public void reconcileSearchIndex() {
+        long started = System.currentTimeMillis();
+        Set<Long> missing = searchIndex.ids();
+        export(book -> {
+            missing.remove(book.getId());
+            searchIndex.index(book);
+        });
+        missing.forEach(searchIndex::remove);
+        log.debug("Reconciled search index in {} ms, removed {} books", System.currentTimeMillis() - started,
+                missing.size());
     }
 
     @Override
     public Book save(Book book) {
-        if (repository.existsByIsbn(book.getIsbn())) {
-            throw new IsbnException("Isbn já foi cadastrado");
+        if (cache.containsIsbn(book.getIsbn())
+                || (isbnFilter.mightContain(book.getIsbn()) && repository.existsByIsbn(book.getIsbn()))) {
+            log.debug("Rejected book with duplicated isbn {}", book.getIsbn());
+            throw new IsbnException(DUPLICATED_ISBN);
+        }
+        Book saved = insert(book);
+        isbnFilter.put(saved.getIsbn());
+        afterCommit(() -> {
+            searchIndex.index(saved);
+            cache.put(saved);
+        });
+        return saved;
+    }
+
+    /* A verificação acima evita a exceção no caso comum,
+    mas quem garante a unicidade do isbn entre requisições concorrentes é a constraint uk_book_isbn */
+    private Book insert(Book book) {
+        try {
+            return transactions.execute(status -> {
+                Book saved = repository.save(book);
+                outbox.record(BookEvent.created(saved));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicatedIsbn(ex)) {
+                throw ex;
+            }
+            log.debug("Rejected book with duplicated isbn {} by constraint", book.getIsbn());
+            throw new IsbnException(DUPLICATED_ISBN);
+        }
+    }
+
+    static boolean isDuplicatedIsbn(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            String constraint = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName()
+                    : cause.getMessage();
+            if (constraint != null && constraint.toLowerCase().contains(ISBN_CONSTRAINT)) {
+                return true;
+            }
         }
-        return repository.save(book);
+        return false;
     }
 
+    /* Sem @Transactional de propósito: um acerto no cache não deve reservar conexão.
+    Faltas concorrentes para o mesmo id compartilham uma consulta, e o cache é consultado de novo
+    dentro dela para quem chegar logo depois de outra terminar */
     @Override
     public Optional<Book> getById(Long id) {
-        return repository.findById(id);
+        Optional<Book> cached = cache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return idLookups.execute(id, () -> cache.getById(id, this::load));
+    }
+
+    /* O que é carregado aqui vai para o cache, compartilhado por todas as requisições até expirar.
+    A transação de escrita envolve o findById somente leitura e leva a consulta ao primário;
+    lido de uma réplica atrasada, um livro recém excluído ou alterado voltaria ao cache */
+    private Optional<Book> load(Long id) {
+        return batchLoader == null ? transactions.execute(status -> repository.findById(id)) : batchLoader.load(id);
+    }
+
+    private Map<Long, Book> loadAll(List<Long> ids) {
+        return transactions.execute(status -> repository.findAllById(ids)).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+    }
+
+    /* Mesma ideia do getById para vários ids: os acertos vêm do cache e as faltas
+    são buscadas com um único IN a cada BATCH_SIZE ids. O resultado segue a ordem pedida */
+    @Override
+    public List<Optional<Book>> getByIds(List<Long> ids) {
+        Map<Long, Book> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        ids.stream().filter(Objects::nonNull).distinct().forEach(id -> {
+            Optional<Book> cached = cache.get(id);
+            if (cached.isPresent()) {
+                found.put(id, cached.get());
+            } else {
+                missing.add(id);
+            }
+        });
+
+        for (int start = 0; start < missing.size(); start += BATCH_SIZE) {
+            List<Long> chunk = missing.subList(start, Math.min(start + BATCH_SIZE, missing.size()));
+            long writes = cache.writes();
+            Map<Long, Book> loaded = loadAll(chunk);
+            found.putAll(loaded);
+            cache.putLoaded(loaded.values(), writes);
+        }
+
+        return ids.stream()
+                .map(id -> Optional.ofNullable(id == null ? null : found.get(id)))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -39,7 +238,33 @@ public class BookServiceImpl implements BookService {
         if (id == null) {
             throw new IllegalArgumentException("Id cant be bull or empty");
         }
-        repository.deleteById(id);
+        transactions.executeWithoutResult(status -> {
+            repository.deleteById(id);
+            outbox.record(BookEvent.deleted(id));
+        });
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            cache.evict(id);
+        });
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id cant be bull or empty");
+        }
+        boolean deleted = transactions.execute(status -> {
+            if (repository.deleteBookById(id) == 0) {
+                return false;
+            }
+            outbox.record(BookEvent.deleted(id));
+            return true;
+        });
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            cache.evict(id);
+        });
+        return deleted;
     }
 
     @Override
@@ -47,18 +272,219 @@ public class BookServiceImpl implements BookService {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book cant be bull");
         }
-        return repository.save(book);
+        Book updated = transactions.execute(status -> {
+            Book saved = repository.save(book);
+            /* O flush aplica o incremento da versão antes de ela ser copiada para o evento */
+            repository.flush();
+            outbox.record(BookEvent.updated(saved));
+            return saved;
+        });
+        afterCommit(() -> {
+            searchIndex.index(updated);
+            cache.put(updated);
+        });
+        return updated;
+    }
+
+    /* Dentro de uma transação o cache e o índice só mudam depois do commit, para que um rollback
+    não deixe neles um livro que não foi gravado e uma leitura antes do commit não recoloque o antigo.
+    O put depois do commit substitui o que uma carga concorrente tenha deixado no cache */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /* Transação de escrita para que a leitura após o update seja feita no primário e não em uma réplica atrasada */
+    @Override
+    @Transactional
+    public Optional<Book> updateById(Long id, String title, String author, Long expectedVersion) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id cant be bull or empty");
+        }
+        Optional<Book> cached = cache.get(id);
+
+        if (expectedVersion == null) {
+            if (repository.updateTitleAndAuthor(id, title, author) == 0) {
+                return Optional.empty();
+            }
+            cached = Optional.empty();
+        } else if (repository.updateTitleAndAuthorIfVersion(id, title, author, expectedVersion) == 0) {
+            if (repository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Livro foi alterado por outra requisição");
+            }
+            return Optional.empty();
+        }
+
+        /* Com a versão esperada confirmada pelo banco a nova versão é conhecida,
+        sem ela é preciso ler o livro para devolver a versão atual */
+        Optional<Book> updated = cached
+                .map(book -> new Book(id, title, author, book.getIsbn(), expectedVersion + 1))
+                .or(() -> repository.findById(id));
+        updated.ifPresent(book -> {
+            outbox.record(BookEvent.updated(book));
+            afterCommit(() -> {
+                searchIndex.index(book);
+                cache.put(book);
+            });
+        });
+        return updated;
     }
 
+    /* Buscas idênticas concorrentes compartilham a mesma consulta. A transação somente leitura
+    fica no repository, com página e count na mesma conexão, para que quem espera não segure conexão */
     @Override
     public Page<Book> find(Book book, Pageable pages) {
-        Example<Book> example = Example.of(book,
+        return searches.execute(key(book, pages), () -> repository.findAll(example(book), pages));
+    }
+
+    /* Mesmo filtro do find, mas projetado direto no BookResponse. A transação somente leitura do repository
+    deixa a sessão em FlushMode.MANUAL e, com réplicas configuradas, a consulta vai para uma delas */
+    @Override
+    public Page<BookResponse> findResponses(Book book, Pageable pages) {
+        return responseSearches.execute(key(book, pages), () -> repository.findResponses(contains(book.getTitle()),
+                contains(book.getAuthor()), contains(book.getIsbn()), pages));
+    }
+
+    private static List<Object> key(Book book, Pageable pages) {
+        return Arrays.asList(book.getTitle(), book.getAuthor(), book.getIsbn(), pages);
+    }
+
+    @Override
+    public Slice<Book> findAfter(Book book, BookCursor cursor, int size) {
+        Pageable limit = PageRequest.of(0, size);
+        if (BookCursor.SORT_BY_TITLE.equals(cursor.getSort())) {
+            return repository.findNextByTitle(contains(book.getTitle()), contains(book.getAuthor()),
+                    contains(book.getIsbn()), cursor.getTitle(), cursor.getId(), limit);
+        }
+        return repository.findNextById(contains(book.getTitle()), contains(book.getAuthor()),
+                contains(book.getIsbn()), cursor.getId(), limit);
+    }
+
+    @Override
+    public long count(Book book) {
+        return repository.count(example(book));
+    }
+
+    @Override
+    public List<Book> search(String query, int size) {
+        List<Long> ids = searchIndex.search(query, size);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Book> books = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Example<Book> example(Book book) {
+        return Example.of(book,
                 ExampleMatcher
                         .matching()
                         .withIgnoreCase()
                         .withIgnoreNullValues()
                         .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+    }
+
+    private static String contains(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    @Override
+    public List<BookBatchResponse> saveAll(List<Book> books) {
+        BookBatchResponse[] results = new BookBatchResponse[books.size()];
+        Set<String> seen = new HashSet<>();
+
+        for (int start = 0; start < books.size(); start += BATCH_SIZE) {
+            List<Book> chunk = books.subList(start, Math.min(start + BATCH_SIZE, books.size()));
+
+            Set<String> candidates = chunk.stream()
+                    .map(Book::getIsbn)
+                    .filter(isbnFilter::mightContain)
+                    .collect(Collectors.toSet());
+            Set<String> existing = candidates.isEmpty()
+                    ? Collections.emptySet()
+                    : new HashSet<>(repository.findExistingIsbns(candidates));
+
+            List<Book> accepted = new ArrayList<>();
+            List<Integer> acceptedIndexes = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Book book = chunk.get(i);
+                int index = start + i;
+                if (existing.contains(book.getIsbn()) || !seen.add(book.getIsbn())) {
+                    results[index] = BookBatchResponse.rejected(index, book.getIsbn(), DUPLICATED_ISBN);
+                } else {
+                    accepted.add(book);
+                    acceptedIndexes.add(index);
+                }
+            }
 
-        return repository.findAll(example, pages);
+            List<Book> saved;
+            try {
+                saved = transactions.execute(status -> {
+                    List<Book> inserted = repository.saveAll(accepted);
+                    outbox.recordAll(inserted.stream().map(BookEvent::created).collect(Collectors.toList()));
+                    return inserted;
+                });
+            } catch (DataIntegrityViolationException ex) {
+                if (!isDuplicatedIsbn(ex)) {
+                    throw ex;
+                }
+                saveOneByOne(accepted, acceptedIndexes, results);
+                continue;
+            }
+            for (int i = 0; i < saved.size(); i++) {
+                accept(saved.get(i), acceptedIndexes.get(i), results);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /* Outra requisição gravou um dos isbns depois da consulta do lote e o lote inteiro sofreu rollback.
+    Os livros são recriados sem o id atribuído na tentativa anterior e gravados um a um */
+    private void saveOneByOne(List<Book> books, List<Integer> indexes, BookBatchResponse[] results) {
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            int index = indexes.get(i);
+            try {
+                accept(insert(new Book(book.getTitle(), book.getAuthor(), book.getIsbn())), index, results);
+            } catch (IsbnException ex) {
+                results[index] = BookBatchResponse.rejected(index, book.getIsbn(), DUPLICATED_ISBN);
+            }
+        }
+    }
+
+    private void accept(Book book, int index, BookBatchResponse[] results) {
+        isbnFilter.put(book.getIsbn());
+        searchIndex.index(book);
+        results[index] = BookBatchResponse.accepted(index, book.getIsbn(), book.getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(Consumer<Book> consumer) {
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(book -> {
+                entityManager.detach(book);
+                consumer.accept(book);
+            });
+        }
     }
 }
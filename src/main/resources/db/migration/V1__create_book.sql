@@ -0,0 +1,15 @@
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id      bigint       not null,
+    title   varchar(255) not null,
+    author  varchar(255) not null,
+    isbn    varchar(255) not null,
+    version bigint       not null default 0,
+    constraint pk_book primary key (id),
+    constraint uk_book_isbn unique (isbn)
+);
+
+-- Paginação por título (findNextByTitle ordena por title, id) e filtros exatos por autor
+create index idx_book_title_id on book (title, id);
+create index idx_book_author on book (author);
@@ -0,0 +1,14 @@
+create sequence book_event_seq start with 1 increment by 50;
+
+-- Outbox: gravado na mesma transação da alteração do livro e apagado depois de publicado pelo BookEventRelay
+create table book_event (
+    id         bigint       not null,
+    type       varchar(16)  not null,
+    book_id    bigint       not null,
+    title      varchar(255),
+    author     varchar(255),
+    isbn       varchar(255),
+    version    bigint,
+    created_at timestamp    not null,
+    constraint pk_book_event primary key (id)
+);
@@ -0,0 +1,9 @@
+-- Lease do BookEventRelay: só a instância dona da linha publica o outbox e atende /api/books/events e /changes
+create table book_event_relay (
+    id         integer     not null,
+    owner      varchar(64),
+    expires_at timestamp   not null,
+    constraint pk_book_event_relay primary key (id)
+);
+
+insert into book_event_relay (id, owner, expires_at) values (1, null, timestamp '1970-01-01 00:00:00');
@@ -0,0 +1,2 @@
+-- Todos os filtros por autor são lower(author) like '%x%', que não usam este índice; ele só encarecia as escritas
+drop index idx_book_author;
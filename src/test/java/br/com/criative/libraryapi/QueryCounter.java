@@ -0,0 +1,30 @@
+package br.com.criative.libraryapi;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.assertj.core.api.Assertions;
+
+/* Consulta os comandos SQL contados pelo datasource-proxy na thread atual.
+Chamadas de sequence entram como "other" e não são verificadas,
+pois com o pooled optimizer elas só acontecem a cada 50 ids */
+public final class QueryCounter {
+
+    private QueryCounter() {
+    }
+
+    public static void reset() {
+        QueryCountHolder.clear();
+    }
+
+    public static QueryCount count() {
+        return QueryCountHolder.getGrandTotal();
+    }
+
+    public static void assertStatements(int select, int insert, int update, int delete) {
+        QueryCount count = count();
+        Assertions.assertThat(count.getSelect()).as("select statements").isEqualTo(select);
+        Assertions.assertThat(count.getInsert()).as("insert statements").isEqualTo(insert);
+        Assertions.assertThat(count.getUpdate()).as("update statements").isEqualTo(update);
+        Assertions.assertThat(count.getDelete()).as("delete statements").isEqualTo(delete);
+    }
+}
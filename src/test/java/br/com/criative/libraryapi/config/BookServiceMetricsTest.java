@@ -0,0 +1,71 @@
+package br.com.criative.libraryapi.config;
+
+import br.com.criative.libraryapi.handler.IsbnException;
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.services.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+public class BookServiceMetricsTest {
+
+    SimpleMeterRegistry registry;
+
+    BookService target;
+
+    BookService service;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        target = Mockito.mock(BookService.class);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new BookServiceMetrics(registry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Deve registrar o tempo das operações separado por resultado")
+    public void outcomeTest() {
+
+        Mockito.when(target.getById(1L)).thenReturn(Optional.of(new Book(1L, "Titulo", "Autor", "123")));
+        Mockito.when(target.getById(2L)).thenReturn(Optional.empty());
+        Mockito.when(target.deleteById(3L)).thenReturn(false);
+
+        service.getById(1L);
+        service.getById(2L);
+        service.getById(2L);
+        service.deleteById(3L);
+
+        Assertions.assertThat(count("getById", BookServiceMetrics.OK)).isEqualTo(1);
+        Assertions.assertThat(count("getById", BookServiceMetrics.NOT_FOUND)).isEqualTo(2);
+        Assertions.assertThat(count("deleteById", BookServiceMetrics.NOT_FOUND)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar conflito de isbn e repassar a exceção")
+    public void isbnConflictTest() {
+
+        Book book = new Book("Titulo", "Autor", "123");
+        Mockito.when(target.save(book)).thenThrow(new IsbnException("Isbn já foi cadastrado"));
+
+        Assertions.assertThatThrownBy(() -> service.save(book)).isInstanceOf(IsbnException.class);
+
+        Assertions.assertThat(count("save", BookServiceMetrics.ISBN_CONFLICT)).isEqualTo(1);
+    }
+
+    private long count(String operation, String outcome) {
+        return registry.get(BookServiceMetrics.TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.criative.libraryapi.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CorrelationIdFilterTest {
+
+    CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    @DisplayName("Deve propagar o correlation id recebido no MDC e na resposta")
+    public void propagateTest() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.addHeader(CorrelationIdFilter.HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> duringRequest = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> duringRequest.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        Assertions.assertThat(duringRequest.get()).isEqualTo("abc-123");
+        Assertions.assertThat(response.getHeader(CorrelationIdFilter.HEADER)).isEqualTo("abc-123");
+        Assertions.assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve gerar um correlation id quando o recebido for inválido")
+    public void generateTest() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.addHeader(CorrelationIdFilter.HEADER, "linha\nquebrada");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> { });
+
+        Assertions.assertThat(response.getHeader(CorrelationIdFilter.HEADER))
+                .isNotEqualTo("linha\nquebrada")
+                .hasSize(36);
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.criative.libraryapi.config;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class QueryCountFilterTest {
+
+    QueryCountFilter filter = new QueryCountFilter();
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void addRegistry() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    public void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    @DisplayName("Deve registrar os comandos de uma requisição síncrona")
+    public void syncRequestTest() throws Exception {
+
+        MockHttpServletRequest request = request("/api/books/{id}");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+
+        Assertions.assertThat(registry.find(QueryCountFilter.SUMMARY).tag("uri", "/api/books/{id}").summary())
+                .isNotNull();
+    }
+
+    @Test
+    @DisplayName("Não deve registrar requisições assíncronas, cujos comandos rodam em outras threads")
+    public void asyncRequestTest() throws Exception {
+
+        MockHttpServletRequest request = request("/api/books/export");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        Assertions.assertThat(registry.find(QueryCountFilter.SUMMARY).tag("uri", "/api/books/export").summary())
+                .isNull();
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.criative.libraryapi.config;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BookCache;
+import br.com.criative.libraryapi.services.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/* Primário e réplica são dois H2 independentes, sem replicação entre eles.
+Assim é possível saber de qual banco cada leitura veio */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.minimum-idle=3",
+        "library.datasource.replicas.urls=" + ReplicaRoutingConfigTest.REPLICA_URL
+})
+public class ReplicaRoutingConfigTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    static JdbcTemplate replica;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookCache cache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeAll
+    public static void createReplicaSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__create_book.sql")).execute(dataSource);
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primário e fazer as buscas na réplica")
+    public void readFromReplicaTest() {
+
+        Book saved = service.save(new Book("Hobbit", "Tolkien", "routing-1"));
+        Book filter = new Book(null, null, "routing-1");
+
+        Assertions.assertThat(service.findResponses(filter, PageRequest.of(0, 10))).isEmpty();
+
+        replica.update("insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)",
+                saved.getId(), "Hobbit da réplica", "Tolkien", "routing-1");
+
+        Assertions.assertThat(service.findResponses(filter, PageRequest.of(0, 10)))
+                .extracting(BookResponse::getTitle)
+                .containsExactly("Hobbit da réplica");
+    }
+
+    @Test
+    @DisplayName("Não deve trazer de volta ao cache um livro excluído que a réplica atrasada ainda tem")
+    public void deleteWithLaggingReplicaTest() {
+
+        Book saved = service.save(new Book("Hobbit", "Tolkien", "routing-3"));
+        replica.update("insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)",
+                saved.getId(), "Hobbit", "Tolkien", "routing-3");
+
+        Assertions.assertThat(service.deleteById(saved.getId())).isTrue();
+
+        /* A réplica não recebeu a exclusão */
+        Assertions.assertThat(replica.queryForObject("select count(*) from book where id = ?", Long.class,
+                saved.getId())).isEqualTo(1);
+        Assertions.assertThat(service.getById(saved.getId())).isEmpty();
+        Assertions.assertThat(service.getByIds(Arrays.asList(saved.getId()))).containsExactly(Optional.empty());
+        Assertions.assertThat(cache.get(saved.getId())).isEmpty();
+        Assertions.assertThat(cache.containsIsbn("routing-3")).isFalse();
+
+        Assertions.assertThat(service.save(new Book("Hobbit", "Tolkien", "routing-3")).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário logo após atualizar o livro")
+    public void readYourWritesTest() {
+
+        Book saved = service.save(new Book("Hobbit", "Tolkien", "routing-2"));
+        cache.evict(saved.getId());
+
+        Optional<Book> updated = service.updateById(saved.getId(), "O Hobbit", "J. R. R. Tolkien", null);
+
+        Assertions.assertThat(updated).map(Book::getTitle).contains("O Hobbit");
+        Assertions.assertThat(updated).map(Book::getVersion).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Deve publicar as métricas do pool do primário e de cada réplica")
+    public void poolMetricsTest() {
+
+        service.getById(-1L);
+
+        Assertions.assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge()).isNotNull();
+        Assertions.assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as propriedades spring.datasource.hikari também às réplicas")
+    public void replicaHikariPropertiesTest() {
+
+        service.getById(-1L);
+
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.min").tag("pool", "replica-0").gauge().value())
+                .isEqualTo(3);
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.criative.libraryapi.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class ReplicaRoutingDataSourceTest {
+
+    static final String LAG_QUERY = "select seconds from replica_lag";
+
+    ReplicaRoutingDataSource routing;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        routing.close();
+    }
+
+    @Test
+    @DisplayName("Deve enviar transações somente leitura para a réplica e o resto para o primário")
+    public void routeReadOnlyTest() throws Exception {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", database("replica", 0));
+        routing = routing(database("primary", null), replicas, ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        Assertions.assertThat(url()).contains("primary");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Assertions.assertThat(url()).contains("replica");
+    }
+
+    @Test
+    @DisplayName("Deve alternar entre as réplicas saudáveis")
+    public void roundRobinTest() throws Exception {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", database("first", 0));
+        replicas.put("replica-1", database("second", 0));
+        routing = routing(database("primary", null), replicas, ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Assertions.assertThat(url()).contains("first");
+        Assertions.assertThat(url()).contains("second");
+        Assertions.assertThat(url()).contains("first");
+    }
+
+    @Test
+    @DisplayName("Deve usar o primário quando a réplica estiver atrasada ou indisponível")
+    public void fallbackToPrimaryTest() throws Exception {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", database("lagging", 60));
+        replicas.put("replica-1", new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE"));
+        routing = routing(database("primary", null), replicas, ReplicaRoutingDataSource.Selection.LEAST_LATENCY);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Assertions.assertThat(routing.getHealthyReplicas()).isEmpty();
+        Assertions.assertThat(url()).contains("primary");
+    }
+
+    @Test
+    @DisplayName("Deve voltar a usar a réplica quando o atraso diminuir")
+    public void recoverReplicaTest() throws Exception {
+
+        DataSource lagging = database("recovering", 60);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", lagging);
+        routing = routing(database("primary", null), replicas, ReplicaRoutingDataSource.Selection.LEAST_LATENCY);
+        Assertions.assertThat(routing.getHealthyReplicas()).isEmpty();
+
+        new JdbcTemplate(lagging).update("update replica_lag set seconds = 1");
+        routing.checkReplicas();
+
+        Assertions.assertThat(routing.getHealthyReplicas()).containsExactly("replica-0");
+    }
+
+    private String url() throws Exception {
+        try (Connection connection = routing.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private static ReplicaRoutingDataSource routing(DataSource primary, Map<String, DataSource> replicas,
+                                                    ReplicaRoutingDataSource.Selection selection) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, selection,
+                Duration.ofSeconds(5), LAG_QUERY);
+        routing.afterPropertiesSet();
+        routing.start(Duration.ofHours(1));
+        return routing;
+    }
+
+    /* Cada banco H2 em memória simula uma instância; as réplicas têm uma tabela com o atraso simulado */
+    private static DataSource database(String name, Integer lagSeconds) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        if (lagSeconds != null) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("create table replica_lag (seconds int)");
+            jdbc.update("insert into replica_lag values (?)", lagSeconds);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import br.com.criative.libraryapi.services.BookChangeBroadcaster;
+import br.com.criative.libraryapi.services.BookEventRelay;
+import br.com.criative.libraryapi.services.BookEventSink;
+import br.com.criative.libraryapi.services.BookEventsPublished;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(BookEventController.class)
+@AutoConfigureMockMvc
+@Import(BookChangeBroadcaster.class)
+public class BookChangesTest {
+
+    static String CHANGES_API = "/api/books/changes";
+
+    @MockBean
+    BookEventSink sink;
+
+    @MockBean
+    BookEventRelay relay;
+
+    @Autowired
+    BookChangeBroadcaster broadcaster;
+
+    @Autowired
+    MockMvc mvc;
+
+    @BeforeEach
+    public void leader() {
+        BDDMockito.given(relay.isLeader()).willReturn(true);
+    }
+
+    @Test
+    @DisplayName("Deve reenviar os eventos depois do Last-Event-ID e seguir com os novos e o heartbeat")
+    public void changesTest() throws Exception {
+
+        BDDMockito.given(sink.lastOffset()).willReturn(2L);
+        BDDMockito.given(sink.read(1, 256)).willReturn(Arrays.asList(event(2, "CREATED")));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(CHANGES_API)
+                .header(BookEventController.LAST_EVENT_ID, "1")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = result.getResponse();
+
+        awaitContent(response, "id:2");
+
+        /* O evento 2 chega de novo pelo relay e não deve ser repetido */
+        broadcaster.onPublished(new BookEventsPublished(Arrays.asList(event(2, "CREATED"), event(3, "DELETED"))));
+        awaitContent(response, "id:3");
+
+        broadcaster.heartbeat();
+        awaitContent(response, ":heartbeat");
+
+        String content = response.getContentAsString();
+        Assertions.assertThat(content.split("id:2", -1)).hasSize(2);
+        Assertions.assertThat(content).contains("\"type\":\"DELETED\"");
+        Assertions.assertThat(response.getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private static BookEventResponse event(long offset, String type) {
+        return new BookEventResponse(offset, offset, type, 1L, "Hobbit", "Tolkien", "123", 0L, Instant.now());
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(response.getContentAsString()).contains(expected);
+    }
+}
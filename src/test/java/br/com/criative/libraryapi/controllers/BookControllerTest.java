@@ -1,10 +1,14 @@
 package br.com.criative.libraryapi.controllers;
 
+import br.com.criative.libraryapi.config.ExportConfig;
 import br.com.criative.libraryapi.handler.IsbnException;
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCursor;
 import br.com.criative.libraryapi.responses.BookResponse;
 import br.com.criative.libraryapi.services.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,25 +22,37 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 /* Anotação para o Spring criar um contexto para rodar os testes.
 O contexto é criado a partir da injeção de depência controlada pelo Spring  */
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 /* Anotação serve para fazer testes únitários em um Controller*/
-@WebMvcTest
+@WebMvcTest(BookController.class)
 /* Anotação para configurar um objeto que irá fazer as requisições */
 @AutoConfigureMockMvc
+@Import(ExportConfig.class)
 public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
@@ -189,26 +205,23 @@ public class BookControllerTest {
     @DisplayName("Deve excluir um livro")
     public void deleteBookTest() throws Exception {
 
-        Book book = new Book(
-                1L,
-                "Hobbit",
-                "Tolkien",
-                "123123");
-
-        BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.of(book));
+        /* A exclusão é feita em um único comando, sem buscar o livro antes */
+        BDDMockito.given(service.deleteById(Mockito.anyLong())).willReturn(true);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + 1));
 
         mvc.perform(request)
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+        Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
     }
 
     @Test
     @DisplayName("Deve retornar not found ao deletar livro inexistente")
     public void deleteNoneExistentBookTest() throws Exception {
 
-        BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.deleteById(Mockito.anyLong())).willReturn(false);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + 1));
@@ -227,23 +240,16 @@ public class BookControllerTest {
                 "Tolkien",
                 "123123");
 
-        Book updatingBook = new Book(
-                1L,
-                "Senhor do aneis",
-                "Tolkien",
-                "123123");
-
         String json = new ObjectMapper().writeValueAsString(book);
 
-        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(updatingBook));
-
         Book updatedBook = new Book(
                 1L,
                 "Hobbit",
                 "Tolkien",
                 "123123");
 
-        BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+        BDDMockito.given(service.updateById(book.getId(), book.getTitle(), book.getAuthor(), null))
+                .willReturn(Optional.of(updatedBook));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + book.getId()))
@@ -270,7 +276,9 @@ public class BookControllerTest {
 
         String json = new ObjectMapper().writeValueAsString(book);
 
-        BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.updateById(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.isNull()))
+                .willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + book.getId()))
@@ -282,6 +290,93 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve lançar erro de validação ao atualizar livro com título em branco")
+    public void updateBlankTitleTest() throws Exception {
+
+        String json = new ObjectMapper().writeValueAsString(new BookResponse(" ", "Tolkien", null));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)));
+
+        Mockito.verify(service, Mockito.never()).updateById(Mockito.anyLong(), Mockito.any(), Mockito.any(),
+                Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar livro sem exigir o isbn no corpo")
+    public void updateWithoutIsbnTest() throws Exception {
+
+        String json = new ObjectMapper().writeValueAsString(new BookResponse("O Hobbit", "Tolkien", null));
+
+        BDDMockito.given(service.updateById(1L, "O Hobbit", "Tolkien", null))
+                .willReturn(Optional.of(new Book(1L, "O Hobbit", "Tolkien", "123123")));
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value("123123"));
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros por id na ordem pedida marcando os não encontrados")
+    public void getBooksByIdsTest() throws Exception {
+
+        BDDMockito.given(service.getByIds(Arrays.asList(2L, 1L)))
+                .willReturn(Arrays.asList(Optional.empty(), Optional.of(new Book(1L, "Hobbit", "Tolkien", "123"))));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?ids=2,1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].id").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].found").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].found").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].title").value("Hobbit"));
+
+        Mockito.verify(service, Mockito.never()).findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros por id informados no corpo da requisição")
+    public void mgetBooksTest() throws Exception {
+
+        BDDMockito.given(service.getByIds(Arrays.asList(1L)))
+                .willReturn(Arrays.asList(Optional.of(new Book(1L, "Hobbit", "Tolkien", "123"))));
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/_mget")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("[1]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].isbn").value("123"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar uma lista de ids maior que o limite")
+    public void mgetTooManyIdsTest() throws Exception {
+
+        String ids = LongStream.rangeClosed(1, BookController.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/_mget")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ids))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(service, Mockito.never()).getByIds(Mockito.anyList());
+    }
+
     @Test
     @DisplayName("Deve filtrar livros por author e title, realizando paginação")
     public void findBookTest() throws Exception {
@@ -294,8 +389,8 @@ public class BookControllerTest {
                 "Tolkien",
                 "123123");
 
-        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Book>(Arrays.asList(book),
+        BDDMockito.given(service.findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookResponse>(Arrays.asList(book.toResponseBook()),
                         PageRequest.of(0, 100), 1));
 
         String queryString = String.format("?title=%s&author=%s&page=0&size=100",
@@ -312,4 +407,344 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0))
                 .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100));
     }
+
+    @Test
+    @DisplayName("Deve importar livros em lote informando o resultado de cada linha")
+    public void createBatchTest() throws Exception {
+
+        BookResponse valid = new BookResponse("Hobbit", "Tolkien", "123123");
+        BookResponse duplicated = new BookResponse("Silmarillion", "Tolkien", "123124");
+
+        /* A linha inválida não chega na camada de serviço,
+        por isso o serviço recebe apenas dois livros e os índices são remapeados */
+        BDDMockito.given(service.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(
+                        BookBatchResponse.accepted(0, "123123", 1L),
+                        BookBatchResponse.rejected(1, "123124", "Isbn já foi cadastrado")));
+
+        String json = new ObjectMapper().writeValueAsString(
+                Arrays.asList(valid, new BookResponse(), duplicated));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].accepted").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].accepted").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].index").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].accepted").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].error").value("Isbn já foi cadastrado"));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote a partir de NDJSON")
+    public void createBatchNdjsonTest() throws Exception {
+
+        BDDMockito.given(service.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(BookBatchResponse.accepted(0, "123123", 1L)));
+
+        String ndjson = new ObjectMapper().writeValueAsString(new BookResponse("Hobbit", "Tolkien", "123123"))
+                .concat("\n{invalido\n");
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(ndjson);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].accepted").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].accepted").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar apenas o item nulo de um lote")
+    public void createBatchNullItemTest() throws Exception {
+
+        BDDMockito.given(service.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(BookBatchResponse.accepted(0, "123123", 1L)));
+
+        String json = "[null," + new ObjectMapper().writeValueAsString(new BookResponse("Hobbit", "Tolkien", "123123")) + "]";
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].accepted").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].error").value(BookController.NULL_BOOK))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].accepted").value(true));
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("null\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].accepted").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].error").value(BookController.NULL_BOOK));
+    }
+
+    @Test
+    @DisplayName("Deve gravar o NDJSON em blocos mantendo os índices das linhas")
+    public void createBatchNdjsonChunkTest() throws Exception {
+
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            List<BookBatchResponse> results = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                results.add(BookBatchResponse.accepted(i, books.get(i).getIsbn(), (long) i));
+            }
+            return results;
+        });
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i <= BookController.IMPORT_CHUNK_SIZE; i++) {
+            ndjson.append(new ObjectMapper().writeValueAsString(new BookResponse("Hobbit", "Tolkien", "isbn-" + i)))
+                    .append('\n');
+        }
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(ndjson.toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(BookController.IMPORT_CHUNK_SIZE + 1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[500].index").value(500))
+                .andExpect(MockMvcResultMatchers.jsonPath("[500].isbn").value("isbn-500"));
+
+        Mockito.verify(service, Mockito.times(2)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve ler o array JSON em blocos e escrever o resultado de cada bloco")
+    public void createBatchJsonChunkTest() throws Exception {
+
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            List<BookBatchResponse> results = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                results.add(BookBatchResponse.accepted(i, books.get(i).getIsbn(), (long) i));
+            }
+            return results;
+        });
+
+        List<BookResponse> books = new ArrayList<>();
+        for (int i = 0; i <= BookController.IMPORT_CHUNK_SIZE; i++) {
+            books.add(new BookResponse("Hobbit", "Tolkien", "isbn-" + i));
+        }
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(books)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(BookController.IMPORT_CHUNK_SIZE + 1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[500].index").value(500))
+                .andExpect(MockMvcResultMatchers.jsonPath("[500].isbn").value("isbn-500"));
+
+        Mockito.verify(service, Mockito.times(2)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar com 400 um lote que não é um array JSON válido")
+    public void createBatchMalformedTest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Hobbit\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"title\": \"Hobbit\"},{invalido"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(service, Mockito.never()).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo em NDJSON")
+    public void exportNdjsonTest() throws Exception {
+
+        /* Simula o cursor do serviço entregando cada livro para o consumidor */
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(new Book(1L, "Hobbit", "Tolkien", "123123"));
+            consumer.accept(new Book(2L, "Silmarillion", "Tolkien", "456456"));
+            return null;
+        }).given(service).export(Mockito.any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export"))
+                .accept("application/x-ndjson");
+
+        /* StreamingResponseBody é processado de forma assíncrona,
+        por isso é necessário aguardar o despacho assíncrono da requisição */
+        MvcResult result = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        /* A exportação não herda o timeout padrão das requisições assíncronas */
+        Assertions.assertThat(result.getRequest().getAsyncContext().getTimeout())
+                .isEqualTo(Duration.ofHours(1).toMillis());
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"title\":\"Hobbit\",\"author\":\"Tolkien\",\"isbn\":\"123123\"}\n" +
+                        "{\"title\":\"Silmarillion\",\"author\":\"Tolkien\",\"isbn\":\"456456\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo em CSV")
+    public void exportCsvTest() throws Exception {
+
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(new Book(1L, "Hobbit, o retorno", "Tolkien", "123123"));
+            return null;
+        }).given(service).export(Mockito.any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export"))
+                .accept("text/csv");
+
+        MvcResult result = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "title,author,isbn\n\"Hobbit, o retorno\",Tolkien,123123\n"));
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor sem contar o total")
+    public void seekBookTest() throws Exception {
+
+        Book hobbit = new Book(1L, "Hobbit", "Tolkien", "123123");
+        Book silmarillion = new Book(2L, "Silmarillion", "Tolkien", "456456");
+
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.any(BookCursor.class), Mockito.eq(2)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(hobbit, silmarillion), PageRequest.of(0, 2), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/seek?author=Tolkien&size=2"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").value(BookCursor.after("id", silmarillion).encode()))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(service, Mockito.never()).count(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar bad request para cursor inválido")
+    public void seekInvalidCursorTest() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/seek?cursor=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por texto")
+    public void searchBookTest() throws Exception {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        BDDMockito.given(service.search("tolk", 20)).willReturn(Arrays.asList(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/search?q=tolk"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].title").value(book.getTitle()));
+    }
+
+    @Test
+    @DisplayName("Deve retornar a versão do livro no ETag e not modified quando o cliente já possui a versão")
+    public void getBookNotModifiedTest() throws Exception {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123", 3L);
+
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""));
+
+        /* Com If-None-Match igual ao ETag atual o corpo não é reenviado */
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar livro condicionado à versão informada no If-Match")
+    public void updateBookIfMatchTest() throws Exception {
+
+        BookResponse response = new BookResponse("O Hobbit", "Tolkien", "123123");
+        String json = new ObjectMapper().writeValueAsString(response);
+
+        BDDMockito.given(service.updateById(1L, "O Hobbit", "Tolkien", 3L))
+                .willReturn(Optional.of(new Book(1L, "O Hobbit", "Tolkien", "123123", 4L)));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("title").value("O Hobbit"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar precondition failed ao atualizar versão desatualizada")
+    public void updateStaleBookTest() throws Exception {
+
+        BookResponse response = new BookResponse("O Hobbit", "Tolkien", "123123");
+        String json = new ObjectMapper().writeValueAsString(response);
+
+        BDDMockito.given(service.updateById(1L, "O Hobbit", "Tolkien", 2L))
+                .willThrow(new OptimisticLockingFailureException("Livro foi alterado por outra requisição"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)));
+    }
 }
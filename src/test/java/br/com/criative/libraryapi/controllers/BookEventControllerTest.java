@@ -0,0 +1,120 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import br.com.criative.libraryapi.services.BookChangeBroadcaster;
+import br.com.criative.libraryapi.services.BookEventRelay;
+import br.com.criative.libraryapi.services.BookEventSink;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(BookEventController.class)
+@AutoConfigureMockMvc
+public class BookEventControllerTest {
+
+    static String EVENTS_API = "/api/books/events";
+
+    @MockBean
+    BookEventSink sink;
+
+    @MockBean
+    BookEventRelay relay;
+
+    @MockBean
+    BookChangeBroadcaster broadcaster;
+
+    @Autowired
+    MockMvc mvc;
+
+    @BeforeEach
+    public void leader() {
+        BDDMockito.given(relay.isLeader()).willReturn(true);
+    }
+
+    @Test
+    @DisplayName("Deve retornar os eventos depois do offset informado")
+    public void readEventsTest() throws Exception {
+
+        BDDMockito.given(sink.lastOffset()).willReturn(42L);
+        BDDMockito.given(sink.read(41, 2)).willReturn(Arrays.asList(
+                new BookEventResponse(42, 7L, "CREATED", 1L, "Hobbit", "Tolkien", "123", 0L, Instant.now())));
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API + "?after=41&limit=2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].offset").value(42))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].type").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].bookId").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um limite fora do intervalo permitido")
+    public void invalidLimitTest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API + "?limit=" + (BookEventController.MAX_LIMIT + 1)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(sink, Mockito.never()).read(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 quando o limite de conexões de mudanças for atingido")
+    public void tooManySubscribersTest() throws Exception {
+
+        BDDMockito.given(broadcaster.subscribe(Mockito.any())).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("Deve responder 410 quando o offset estiver à frente do log de eventos")
+    public void offsetAheadOfLogTest() throws Exception {
+
+        BDDMockito.given(sink.lastOffset()).willReturn(3L);
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API + "?after=41"))
+                .andExpect(MockMvcResultMatchers.status().isGone());
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/changes").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header(BookEventController.LAST_EVENT_ID, "41"))
+                .andExpect(MockMvcResultMatchers.status().isGone());
+
+        Mockito.verify(sink, Mockito.never()).read(Mockito.anyLong(), Mockito.anyInt());
+        Mockito.verify(broadcaster, Mockito.never()).subscribe(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 na instância que não tem a lease do relay")
+    public void notLeaderTest() throws Exception {
+
+        BDDMockito.given(relay.isLeader()).willReturn(false);
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+
+        Mockito.verify(sink, Mockito.never()).read(Mockito.anyLong(), Mockito.anyInt());
+        Mockito.verify(broadcaster, Mockito.never()).subscribe(Mockito.any());
+    }
+}
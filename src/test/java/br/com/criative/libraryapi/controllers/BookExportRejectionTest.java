@@ -0,0 +1,73 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.config.ExportConfig;
+import br.com.criative.libraryapi.services.BookService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/* exportExecutor com uma thread e sem fila: enquanto uma exportação roda qualquer outra é recusada */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = BookController.class,
+        properties = {"library.export.pool-size=1", "library.export.queue-capacity=0"})
+@AutoConfigureMockMvc
+@Import(ExportConfig.class)
+public class BookExportRejectionTest {
+
+    static String EXPORT_API = "/api/books/export";
+
+    @MockBean
+    BookService service;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Deve responder 503 com Retry-After quando o executor estiver cheio")
+    public void rejectedTest() throws Exception {
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BDDMockito.willAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return null;
+        }).given(service).export(Mockito.any());
+
+        MvcResult busy = mvc.perform(MockMvcRequestBuilders.get(EXPORT_API).accept(BookController.NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        running.await(5, TimeUnit.SECONDS);
+
+        try {
+            mvc.perform(MockMvcRequestBuilders.get(EXPORT_API).accept(BookController.NDJSON))
+                    .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)));
+        } finally {
+            release.countDown();
+        }
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(busy))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.UUID;
+
+/* Testes de integração que verificam quantos comandos SQL cada endpoint executa.
+Servem para pegar leituras redundantes e N+1 quando o service ou o repository mudarem */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookQueryCountTest {
+
+    static String BOOK_API = "/api/books";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Test
+    @DisplayName("Deve criar um livro apenas com o insert do livro e o do evento no outbox")
+    public void createStatementsTest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(UUID.randomUUID().toString())))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        QueryCounter.assertStatements(0, 2, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Deve ler, atualizar e excluir um livro em cache sem selects, gravando os eventos no outbox")
+    public void cachedStatementsTest() throws Exception {
+
+        /* A importação em lote não popula o cache, a primeira leitura vai ao banco */
+        long id = create();
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        QueryCounter.assertStatements(1, 0, 0, 0);
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        QueryCounter.assertStatements(0, 0, 0, 0);
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API + "/" + id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("ignorado")))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        QueryCounter.assertStatements(0, 1, 1, 0);
+
+        mvc.perform(MockMvcRequestBuilders.delete(BOOK_API + "/" + id))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        QueryCounter.assertStatements(0, 1, 0, 1);
+    }
+
+    @Test
+    @DisplayName("Deve paginar com o select da página e o count")
+    public void findStatementsTest() throws Exception {
+
+        create();
+        create();
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?page=0&size=1"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        QueryCounter.assertStatements(2, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros com um único select e os seguintes do cache")
+    public void getByIdsStatementsTest() throws Exception {
+
+        long first = create();
+        long second = create();
+        long third = create();
+        String ids = first + "," + second + "," + third + ",-1";
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?ids=" + ids))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[3].found").value(false));
+        QueryCounter.assertStatements(1, 0, 0, 0);
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?ids=" + first + "," + third))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        QueryCounter.assertStatements(0, 0, 0, 0);
+    }
+
+    private long create() throws Exception {
+        String body = mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + json(UUID.randomUUID().toString()) + "]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = mapper.readTree(body).get(0);
+        return result.get("id").asLong();
+    }
+
+    private static String json(String isbn) {
+        return "{\"title\":\"Hobbit\",\"author\":\"Tolkien\",\"isbn\":\"" + isbn + "\"}";
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.config.ExportConfig;
+import br.com.criative.libraryapi.config.SerializationConfig;
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BookService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(BookController.class)
+@AutoConfigureMockMvc
+@Import({SerializationConfig.class, ExportConfig.class})
+public class BookSerializationTest {
+
+    static String BOOK_API = "/api/books";
+
+    static MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    static MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @MockBean
+    BookService service;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        BDDMockito.given(service.findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookResponse>(
+                        Arrays.asList(new BookResponse("Hobbit", "Tolkien", "123123")),
+                        PageRequest.of(0, 20), 1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar a página de livros em CBOR quando solicitado pelo Accept")
+    public void findBookCborTest() throws Exception {
+
+        JsonNode page = find(CBOR, new CBORFactory());
+
+        Assertions.assertThat(page.get("content").get(0).get("title").asText()).isEqualTo("Hobbit");
+        Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve retornar a página de livros em Smile quando solicitado pelo Accept")
+    public void findBookSmileTest() throws Exception {
+
+        JsonNode page = find(SMILE, new SmileFactory());
+
+        Assertions.assertThat(page.get("content").get(0).get("isbn").asText()).isEqualTo("123123");
+        Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve continuar respondendo JSON por padrão com o módulo afterburner registrado")
+    public void findBookJsonTest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].author").value("Tolkien"));
+
+        Assertions.assertThat(objectMapper.getRegisteredModuleIds()).contains(new AfterburnerModule().getTypeId());
+    }
+
+    private JsonNode find(MediaType mediaType, JsonFactory factory) throws Exception {
+        byte[] body = mvc.perform(MockMvcRequestBuilders.get(BOOK_API).accept(mediaType))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(mediaType))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        return new ObjectMapper(factory).readTree(body);
+    }
+}
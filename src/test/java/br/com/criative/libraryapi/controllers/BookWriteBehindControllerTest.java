@@ -0,0 +1,127 @@
+package br.com.criative.libraryapi.controllers;
+
+import br.com.criative.libraryapi.config.ExportConfig;
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookCreationStatus;
+import br.com.criative.libraryapi.responses.BookResponse;
+import br.com.criative.libraryapi.services.BookService;
+import br.com.criative.libraryapi.services.BookWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = {BookController.class, BookWriteBehindController.class},
+        properties = "library.write-behind.enabled=true")
+@AutoConfigureMockMvc
+@Import(ExportConfig.class)
+public class BookWriteBehindControllerTest {
+
+    static String BOOK_API = "/api/books";
+
+    @MockBean
+    BookService service;
+
+    @MockBean
+    BookWriteBehind writeBehind;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Test
+    @DisplayName("Deve enfileirar o livro e responder 202 com a URL de status")
+    public void createAsyncTest() throws Exception {
+
+        BDDMockito.given(writeBehind.submit(Mockito.any(Book.class)))
+                .willReturn(Optional.of(BookCreationStatus.pending("abc", "123")));
+
+        mvc.perform(post(new BookResponse("Hobbit", "Tolkien", "123")).header("Prefer", "respond-async"))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LOCATION,
+                        "http://localhost/api/books/creations/abc"))
+                .andExpect(MockMvcResultMatchers.header().string("Preference-Applied", "respond-async"))
+                .andExpect(MockMvcResultMatchers.jsonPath("state").value("PENDING"));
+
+        Mockito.verify(service, Mockito.never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve responder 429 quando a fila de criação estiver cheia")
+    public void createAsyncQueueFullTest() throws Exception {
+
+        BDDMockito.given(writeBehind.submit(Mockito.any(Book.class))).willReturn(Optional.empty());
+
+        mvc.perform(post(new BookResponse("Hobbit", "Tolkien", "123")).header("Prefer", "respond-async"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("Deve validar o livro antes de enfileirar")
+    public void createAsyncInvalidTest() throws Exception {
+
+        mvc.perform(post(new BookResponse()).header("Prefer", "respond-async"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(writeBehind, Mockito.never()).submit(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve criar de forma síncrona quando o cabeçalho Prefer não for enviado")
+    public void createSyncTest() throws Exception {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123");
+        BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(book);
+
+        mvc.perform(post(new BookResponse("Hobbit", "Tolkien", "123")))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        Mockito.verify(writeBehind, Mockito.never()).submit(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve informar o conflito de isbn no recurso de status")
+    public void statusTest() throws Exception {
+
+        BDDMockito.given(writeBehind.status("abc")).willReturn(Optional.of(
+                new BookCreationStatus("abc", BookCreationStatus.State.REJECTED, "123", null, "Isbn já foi cadastrado")));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/creations/abc"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("state").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("error").value("Isbn já foi cadastrado"));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/creations/xyz"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    private MockHttpServletRequestBuilder post(BookResponse response)
+            throws Exception {
+        return MockMvcRequestBuilders.post(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(response));
+    }
+}
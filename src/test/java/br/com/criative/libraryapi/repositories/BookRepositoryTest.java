@@ -1,17 +1,32 @@
 package br.com.criative.libraryapi.repositories;
 
+import br.com.criative.libraryapi.QueryCounter;
+import br.com.criative.libraryapi.config.DataSourceProxyConfig;
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookResponse;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -23,6 +38,7 @@ No momento da execução do teste ele limpa a base de dados
 Após finalizar o teste a base de dados também é limpa.
 Dessa forma é possível realizar os testes de integração*/
 @DataJpaTest
+@Import(DataSourceProxyConfig.class)
 public class BookRepositoryTest {
 
     /* Objeto usado para criar os cenários
@@ -118,4 +134,195 @@ public class BookRepositoryTest {
 
         Assertions.assertThat(bookFound).isNotNull();
     }
+
+    @Test
+    @DisplayName("Deve retornar apenas os isbns já cadastrados")
+    public void findExistingIsbnsTest() {
+
+        entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+
+        List<String> isbns = bookRepository.findExistingIsbns(Arrays.asList("123", "789"));
+
+        Assertions.assertThat(isbns).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os livros ordenados por ID")
+    public void streamAllTest() {
+
+        Book hobbit = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        Book silmarillion = entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+
+        /* O Stream precisa ser fechado para liberar o cursor aberto no banco */
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Assertions.assertThat(books.map(Book::getId).collect(Collectors.toList()))
+                    .containsExactly(hobbit.getId(), silmarillion.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar os livros seguintes ao último ID lido")
+    public void findNextByIdTest() {
+
+        Book hobbit = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        Book silmarillion = entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+        entityManager.persist(new Book("Duna", "Herbert", "789"));
+
+        Slice<Book> first = bookRepository.findNextById("", "tolk", "", 0L, PageRequest.of(0, 1));
+        Slice<Book> second = bookRepository.findNextById("", "tolk", "", hobbit.getId(), PageRequest.of(0, 1));
+
+        Assertions.assertThat(first.getContent()).containsExactly(hobbit);
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(second.getContent()).containsExactly(silmarillion);
+        Assertions.assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar os livros seguintes ao último título lido")
+    public void findNextByTitleTest() {
+
+        Book silmarillion = entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+        Book hobbit = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        Book duna = entityManager.persist(new Book("Duna", "Herbert", "789"));
+
+        Slice<Book> first = bookRepository.findNextByTitle("", "", "", "", 0L, PageRequest.of(0, 2));
+        Slice<Book> second = bookRepository.findNextByTitle("", "", "", hobbit.getTitle(), hobbit.getId(),
+                PageRequest.of(0, 2));
+
+        Assertions.assertThat(first.getContent()).containsExactly(duna, hobbit);
+        Assertions.assertThat(second.getContent()).containsExactly(silmarillion);
+    }
+
+    @Test
+    @DisplayName("Deve excluir livro por ID informando a quantidade de linhas afetadas")
+    public void deleteBookByIdTest() {
+
+        Book book = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+
+        Assertions.assertThat(bookRepository.deleteBookById(book.getId())).isEqualTo(1);
+        Assertions.assertThat(bookRepository.deleteBookById(book.getId())).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar título e autor informando a quantidade de linhas afetadas")
+    public void updateTitleAndAuthorTest() {
+
+        Book book = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.flush();
+        entityManager.clear();
+
+        int updated = bookRepository.updateTitleAndAuthor(book.getId(), "O Hobbit", "J. R. R. Tolkien");
+
+        Assertions.assertThat(updated).isEqualTo(1);
+        Assertions.assertThat(entityManager.find(Book.class, book.getId()).getTitle()).isEqualTo("O Hobbit");
+        Assertions.assertThat(bookRepository.updateTitleAndAuthor(-1L, "O Hobbit", "Tolkien")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar apenas quando a versão informada for a atual")
+    public void updateTitleAndAuthorIfVersionTest() {
+
+        Book book = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Assertions.assertThat(book.getVersion()).isEqualTo(0L);
+        Assertions.assertThat(bookRepository.updateTitleAndAuthorIfVersion(book.getId(), "O Hobbit", "Tolkien", 0L))
+                .isEqualTo(1);
+        Assertions.assertThat(bookRepository.updateTitleAndAuthorIfVersion(book.getId(), "Hobbit", "Tolkien", 0L))
+                .isEqualTo(0);
+        Assertions.assertThat(entityManager.find(Book.class, book.getId()).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Deve consultar isbns existentes com um único select")
+    public void findExistingIsbnsStatementsTest() {
+
+        entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+        entityManager.flush();
+        QueryCounter.reset();
+
+        bookRepository.findExistingIsbns(Arrays.asList("123", "456", "789"));
+
+        QueryCounter.assertStatements(1, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e excluir sem ler o livro antes")
+    public void conditionalStatementsTest() {
+
+        Book book = entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.flush();
+        entityManager.clear();
+        QueryCounter.reset();
+
+        bookRepository.updateTitleAndAuthorIfVersion(book.getId(), "O Hobbit", "Tolkien", 0L);
+        bookRepository.deleteBookById(book.getId());
+
+        QueryCounter.assertStatements(0, 0, 1, 1);
+    }
+
+    @Test
+    @DisplayName("Deve executar o select da página e o count quando houver mais páginas")
+    public void findPageStatementsTest() {
+
+        entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+        entityManager.flush();
+        QueryCounter.reset();
+
+        Page<Book> page = bookRepository.findAll(Example.of(new Book(null, "Tolkien", null)), PageRequest.of(0, 1));
+
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        QueryCounter.assertStatements(2, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Deve impedir isbn duplicado pela constraint do banco")
+    public void uniqueIsbnConstraintTest() {
+
+        bookRepository.saveAndFlush(new Book("Hobbit", "Tolkien", "123"));
+
+        Throwable exception = Assertions.catchThrowable(() ->
+                bookRepository.saveAndFlush(new Book("O Hobbit", "J. R. R. Tolkien", "123")));
+
+        Assertions.assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+        Assertions.assertThat(exception.getMessage()).containsIgnoringCase("uk_book_isbn");
+    }
+
+    @Test
+    @DisplayName("Deve projetar a página direto no BookResponse sem carregar entidades")
+    public void findResponsesTest() {
+
+        entityManager.persist(new Book("Silmarillion", "Tolkien", "456"));
+        entityManager.persist(new Book("Hobbit", "Tolkien", "123"));
+        entityManager.persist(new Book("Duna", "Herbert", "789"));
+        entityManager.flush();
+        entityManager.clear();
+        QueryCounter.reset();
+
+        Page<BookResponse> page = bookRepository.findResponses("", "tolk", "", PageRequest.of(0, 1, Sort.by("title")));
+
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(page.getContent()).extracting(BookResponse::getTitle).containsExactly("Hobbit");
+        Assertions.assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+                .isEqualTo(0);
+        QueryCounter.assertStatements(2, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Deve tratar curingas escapados como texto na projeção")
+    public void findResponsesEscapedTest() {
+
+        entityManager.persist(new Book("100% Tolkien", "Tolkien", "123"));
+        entityManager.persist(new Book("1000 Tolkien", "Tolkien", "456"));
+        /* A consulta usa FlushMode.MANUAL e não enxerga o que ainda não foi enviado ao banco */
+        entityManager.flush();
+
+        Page<BookResponse> page = bookRepository.findResponses("100\\%", "", "", PageRequest.of(0, 10));
+
+        Assertions.assertThat(page.getContent()).extracting(BookResponse::getIsbn).containsExactly("123");
+    }
 }
@@ -0,0 +1,77 @@
+package br.com.criative.libraryapi.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BatchLoaderTest {
+
+    @Test
+    @DisplayName("Deve juntar as chaves pedidas ao mesmo tempo em uma única chamada ao loader")
+    public void batchTest() throws Exception {
+
+        List<List<Long>> calls = new CopyOnWriteArrayList<>();
+        /* Janela longa: o lote só é enviado ao atingir o tamanho máximo */
+        BatchLoader<Long, String> loader = new BatchLoader<>(record(calls), Duration.ofSeconds(30), 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Optional<String>>> results = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            long key = id;
+            results.add(executor.submit(() -> loader.load(key)));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertThat(results.get(i).get(5, TimeUnit.SECONDS)).contains("livro " + (i + 1));
+        }
+        executor.shutdown();
+
+        Assertions.assertThat(calls).hasSize(1);
+        Assertions.assertThat(calls.get(0)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve enviar o lote ao fim da janela e marcar as chaves não encontradas")
+    public void windowTest() {
+
+        List<List<Long>> calls = new CopyOnWriteArrayList<>();
+        BatchLoader<Long, String> loader = new BatchLoader<>(record(calls), Duration.ofMillis(5), 100);
+
+        Assertions.assertThat(loader.load(1L)).contains("livro 1");
+        Assertions.assertThat(loader.load(-1L)).isEmpty();
+        Assertions.assertThat(calls).containsExactly(List.of(1L), List.of(-1L));
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção do loader para todas as chaves do lote")
+    public void failureTest() {
+
+        BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+            throw new IllegalStateException("banco indisponível");
+        }, Duration.ofMillis(5), 100);
+
+        Assertions.assertThatThrownBy(() -> loader.load(1L)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Function<List<Long>, Map<Long, String>> record(List<List<Long>> calls) {
+        return ids -> {
+            calls.add(ids);
+            return ids.stream()
+                    .filter(id -> id > 0)
+                    .collect(Collectors.toMap(Function.identity(), id -> "livro " + id));
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BookCacheTest {
+
+    @Test
+    @DisplayName("Deve esquecer o isbn do livro removido do cache")
+    public void evictTest() {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        cache.put(new Book(1L, "Hobbit", "Tolkien", "123"));
+
+        cache.evict(1L);
+
+        Assertions.assertThat(cache.get(1L)).isEmpty();
+        Assertions.assertThat(cache.containsIsbn("123")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Não deve considerar o isbn de um livro que já saiu do cache")
+    public void orphanIsbnTest() {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        cache.put(new Book(1L, "Hobbit", "Tolkien", "123"));
+        cache.put(new Book(1L, "Hobbit", "Tolkien", "456"));
+
+        Assertions.assertThat(cache.containsIsbn("123")).isFalse();
+        Assertions.assertThat(cache.containsIsbn("456")).isTrue();
+
+        cache.evict(2L);
+        Assertions.assertThat(cache.containsIsbn("456")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve recolocar no cache um livro carregado antes da exclusão")
+    public void deleteDuringLoadTest() throws Exception {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+
+        /* A leitura vê a linha antiga e só termina depois que o delete fez commit */
+        CompletableFuture<Optional<Book>> reader = CompletableFuture.supplyAsync(() -> cache.getById(1L, id -> {
+            loading.countDown();
+            await(deleted);
+            return Optional.of(new Book(1L, "Hobbit", "Tolkien", "123", 0L));
+        }));
+        Assertions.assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> evict = CompletableFuture.runAsync(() -> cache.evict(1L));
+        Thread.sleep(100);
+        deleted.countDown();
+
+        Assertions.assertThat(reader.get(5, TimeUnit.SECONDS)).isPresent();
+        evict.get(5, TimeUnit.SECONDS);
+        Assertions.assertThat(cache.get(1L)).isEmpty();
+        Assertions.assertThat(cache.containsIsbn("123")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve entregar cópias para que alterações de uma requisição não vazem para as outras")
+    public void copyTest() {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        cache.put(new Book(1L, "Hobbit", "Tolkien", "123", 0L));
+
+        cache.get(1L).get().setTitle("Alterado");
+        cache.getById(1L, id -> Optional.empty()).get().setAuthor("Alterado");
+
+        Book cached = cache.get(1L).get();
+        Assertions.assertThat(cached.getTitle()).isEqualTo("Hobbit");
+        Assertions.assertThat(cached.getAuthor()).isEqualTo("Tolkien");
+        Assertions.assertThat(cached.getVersion()).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar a carga em lote quando uma escrita aconteceu durante a consulta")
+    public void putLoadedAfterWriteTest() {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        long writes = cache.writes();
+        cache.evict(1L);
+
+        cache.putLoaded(Arrays.asList(new Book(1L, "Hobbit", "Tolkien", "123")), writes);
+        Assertions.assertThat(cache.get(1L)).isEmpty();
+
+        cache.putLoaded(Arrays.asList(new Book(1L, "Hobbit", "Tolkien", "123")), cache.writes());
+        Assertions.assertThat(cache.get(1L)).isPresent();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BookChangeBroadcasterTest {
+
+    BookEventSink sink = Mockito.mock(BookEventSink.class);
+
+    @Test
+    @DisplayName("Deve recusar conexões acima do limite configurado")
+    public void maxSubscribersTest() {
+
+        BookChangeBroadcaster broadcaster = new BookChangeBroadcaster(sink, 10, Duration.ofMinutes(1), 2, 1, Duration.ofSeconds(5));
+
+        Assertions.assertThat(broadcaster.subscribe(null)).isPresent();
+        Assertions.assertThat(broadcaster.subscribe(null)).isPresent();
+        Assertions.assertThat(broadcaster.subscribe(null)).isEmpty();
+        Assertions.assertThat(broadcaster.subscribers()).isEqualTo(2);
+
+        broadcaster.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve desconectar o cliente cuja fila encher em vez de bloquear a publicação")
+    public void slowSubscriberTest() {
+
+        BookChangeBroadcaster broadcaster = new BookChangeBroadcaster(sink, 1, Duration.ofMinutes(1), 10, 1, Duration.ofSeconds(5));
+        broadcaster.subscribe(null);
+
+        broadcaster.onPublished(new BookEventsPublished(Arrays.asList(event(1), event(2))));
+
+        Assertions.assertThat(broadcaster.subscribers()).isZero();
+        broadcaster.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve desconectar o cliente quando a leitura do sink falhar no replay")
+    public void replayFailureTest() throws Exception {
+
+        Mockito.when(sink.read(Mockito.anyLong(), Mockito.anyInt()))
+                .thenThrow(new UncheckedIOException(new IOException("disk")));
+        BookChangeBroadcaster broadcaster = new BookChangeBroadcaster(sink, 10, Duration.ofMinutes(1), 10, 1,
+                Duration.ofSeconds(5));
+
+        broadcaster.subscribe(5L);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (broadcaster.subscribers() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertThat(broadcaster.subscribers()).isZero();
+        broadcaster.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve desconectar o cliente que parou de ler sem atrasar a entrega aos demais")
+    public void stuckSubscriberTest() throws Exception {
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<SseEmitter.SseEventBuilder> received = new CopyOnWriteArrayList<>();
+        List<SseEmitter> emitters = Arrays.asList(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder event) throws IOException {
+                /* Um cliente que parou de ler deixa a escrita bloqueada no socket */
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder event) {
+                received.add(event);
+            }
+        });
+        BookChangeBroadcaster broadcaster = new BookChangeBroadcaster(sink, 10, Duration.ofMinutes(1), 10, 1,
+                Duration.ofMillis(100)) {
+            private int created;
+
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                return emitters.get(created++);
+            }
+        };
+
+        broadcaster.subscribe(null);
+        broadcaster.onPublished(new BookEventsPublished(Arrays.asList(event(1))));
+        Assertions.assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        broadcaster.subscribe(null);
+        broadcaster.onPublished(new BookEventsPublished(Arrays.asList(event(2))));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            broadcaster.checkWrites();
+        }
+
+        Assertions.assertThat(received).hasSize(1);
+        Assertions.assertThat(broadcaster.subscribers()).isEqualTo(1);
+        release.countDown();
+        broadcaster.destroy();
+    }
+
+    private static BookEventResponse event(long offset) {
+        return new BookEventResponse(offset, offset, "DELETED", offset, null, null, null, null, Instant.now());
+    }
+}
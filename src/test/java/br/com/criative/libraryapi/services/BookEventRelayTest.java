@@ -0,0 +1,102 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.handler.IsbnException;
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.repositories.BookEventRepository;
+import br.com.criative.libraryapi.repositories.BookRepository;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/* O relay agendado fica parado durante o teste para que cada etapa seja executada manualmente */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "library.events.relay-interval-ms=3600000")
+public class BookEventRelayTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookEventRepository eventRepository;
+
+    @Autowired
+    BookEventRelay relay;
+
+    @Autowired
+    BookEventSink sink;
+
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    @BeforeEach
+    public void drain() {
+        relay.relay();
+    }
+
+    @Test
+    @DisplayName("Deve gravar no outbox as alterações do livro e publicá-las em ordem no sink")
+    public void relayTest() {
+
+        long after = sink.lastOffset();
+        Book book = service.save(new Book("Hobbit", "Tolkien", UUID.randomUUID().toString()));
+        service.updateById(book.getId(), "O Hobbit", "Tolkien", 0L);
+        service.deleteById(book.getId());
+
+        Assertions.assertThat(eventRepository.count()).isEqualTo(3);
+        Assertions.assertThat(relay.relayBatch()).isEqualTo(3);
+        Assertions.assertThat(eventRepository.count()).isZero();
+
+        List<BookEventResponse> events = sink.read(after, 10);
+        Assertions.assertThat(events).extracting(BookEventResponse::getType)
+                .containsExactly("CREATED", "UPDATED", "DELETED");
+        Assertions.assertThat(events).extracting(BookEventResponse::getBookId).containsOnly(book.getId());
+        Assertions.assertThat(events.get(1).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve gravar evento quando a alteração do livro for desfeita")
+    public void rollbackTest() {
+
+        /* Gravado direto no repository, o isbn não está no cache nem no filtro
+        e a duplicidade só é detectada pela constraint, depois do evento já ter sido gravado */
+        String isbn = UUID.randomUUID().toString();
+        bookRepository.save(new Book("Hobbit", "Tolkien", isbn));
+
+        Assertions.assertThatThrownBy(() -> service.save(new Book("O Hobbit", "Tolkien", isbn)))
+                .isInstanceOf(IsbnException.class);
+        Assertions.assertThat(service.deleteById(-1L)).isFalse();
+
+        Assertions.assertThat(eventRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve relayar nem ler o outbox em uma segunda instância enquanto a lease estiver com outra")
+    public void leaseTest() {
+
+        BookEventRelay other = new BookEventRelay(eventRepository, sink, publisher, 500, Duration.ofSeconds(30));
+        service.save(new Book("Hobbit", "Tolkien", UUID.randomUUID().toString()));
+
+        Assertions.assertThat(other.relayBatch()).isZero();
+        Assertions.assertThat(other.isLeader()).isFalse();
+        Assertions.assertThat(eventRepository.count()).isEqualTo(1);
+
+        Assertions.assertThat(relay.relayBatch()).isEqualTo(1);
+        Assertions.assertThat(relay.isLeader()).isTrue();
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setIndex() {
+        index = new BookSearchIndex();
+        index.index(new Book(1L, "O Senhor dos Anéis", "J. R. R. Tolkien", "978-85-333-0227-3"));
+        index.index(new Book(2L, "O Hobbit", "J. R. R. Tolkien", "978-85-7827-001-6"));
+        index.index(new Book(3L, "Duna", "Frank Herbert", "978-85-7657-313-3"));
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros por prefixo ignorando acentos e caixa")
+    public void prefixSearchTest() {
+
+        Assertions.assertThat(index.search("ANEI", 10)).containsExactly(1L);
+        Assertions.assertThat(index.search("tolk", 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Deve exigir que todos os termos da busca sejam encontrados")
+    public void allTermsSearchTest() {
+
+        Assertions.assertThat(index.search("hobbit tolkien", 10)).containsExactly(2L);
+        Assertions.assertThat(index.search("hobbit herbert", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livro pelo isbn com ou sem hífens")
+    public void isbnSearchTest() {
+
+        Assertions.assertThat(index.search("9788576573133", 10)).containsExactly(3L);
+        Assertions.assertThat(index.search("978-85-7657-313-3", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve reindexar o livro atualizado e remover o excluído")
+    public void updateAndRemoveTest() {
+
+        index.index(new Book(3L, "Messias de Duna", "Frank Herbert", "978-85-7657-313-3"));
+        index.remove(2L);
+
+        Assertions.assertThat(index.search("messias", 10)).containsExactly(3L);
+        Assertions.assertThat(index.search("hobbit", 10)).isEmpty();
+        Assertions.assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar uma atualização mais antiga que a versão já indexada")
+    public void outOfOrderUpdateTest() {
+
+        index.index(new Book(3L, "Filhos de Duna", "Frank Herbert", "978-85-7657-313-3", 2L));
+        index.index(new Book(3L, "Messias de Duna", "Frank Herbert", "978-85-7657-313-3", 1L));
+
+        Assertions.assertThat(index.search("filhos", 10)).containsExactly(3L);
+        Assertions.assertThat(index.search("messias", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve indexar títulos e autores em outros alfabetos")
+    public void unicodeSearchTest() {
+
+        index.index(new Book(4L, "Война и мир", "Лев Толстой", "978-5-17-090335-2"));
+        index.index(new Book(5L, "Οδύσσεια", "Όμηρος", "978-960-03-3902-1"));
+
+        Assertions.assertThat(index.search("война", 10)).containsExactly(4L);
+        Assertions.assertThat(index.search("толст", 10)).containsExactly(4L);
+        Assertions.assertThat(index.search("ομηρος", 10)).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Deve buscar termos curtos apenas pelo termo exato")
+    public void shortPrefixSearchTest() {
+
+        index.index(new Book(4L, "O", "Anônimo", "978-0-00-000000-2"));
+
+        Assertions.assertThat(index.search("o", 10)).containsExactlyInAnyOrder(1L, 2L, 4L);
+        Assertions.assertThat(index.search("du", 10)).isEmpty();
+        Assertions.assertThat(index.search("dun", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Não deve deixar termos antigos em atualizações concorrentes do mesmo livro")
+    public void concurrentUpdateTest() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String title = "titulo" + i + "z";
+            futures.add(executor.submit(() -> index.index(new Book(3L, title, "Frank Herbert", "978-85-7657-313-3"))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertThat(index.search("titulo", 2000)).containsExactly(3L);
+        long indexedTitles = IntStream.range(0, 2000)
+                .filter(i -> !index.search("titulo" + i + "z", 10).isEmpty())
+                .count();
+        Assertions.assertThat(indexedTitles).isEqualTo(1);
+    }
+}
@@ -2,25 +2,46 @@ package br.com.criative.libraryapi.services;
 
 import br.com.criative.libraryapi.handler.IsbnException;
 import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.repositories.BookEventRepository;
 import br.com.criative.libraryapi.repositories.BookRepository;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCursor;
+import br.com.criative.libraryapi.responses.BookResponse;
 import br.com.criative.libraryapi.services.impl.BookServiceImpl;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -28,12 +49,20 @@ public class BookServiceTest {
 
     BookService service;
 
+    IsbnBloomFilter isbnFilter;
+
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookEventRepository eventRepository;
+
     @BeforeEach
     public void setService() {
-        service = new BookServiceImpl(repository);
+        isbnFilter = new IsbnBloomFilter(1000, 0.01);
+        service = new BookServiceImpl(repository, new BookSearchIndex(),
+                new BookCache(100, Duration.ofMinutes(10)), isbnFilter, new BookOutbox(eventRepository),
+                TransactionOperations.withoutTransaction(), Duration.ZERO, 100);
     }
 
     @Test
@@ -208,4 +237,394 @@ public class BookServiceTest {
         Assertions.assertThat(bookPage.getNumber()).isEqualTo(0);
         Assertions.assertThat(bookPage.getSize()).isEqualTo(10);
     }
+
+    @Test
+    @DisplayName("Deve filtrar livros pela projeção escapando os curingas e ignorando filtros nulos")
+    public void findResponsesTest() {
+
+        PageRequest pages = PageRequest.of(0, 10);
+        Page<BookResponse> page = new PageImpl<>(Arrays.asList(new BookResponse("Hobbit", "Tolkien", "123")),
+                pages, 1);
+
+        Mockito.when(repository.findResponses("", "tolkien\\_", "", pages)).thenReturn(page);
+
+        Page<BookResponse> result = service.findResponses(new Book(null, "tolkien_", null), pages);
+
+        Assertions.assertThat(result).isSameAs(page);
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve salvar livros em lote rejeitando isbn duplicado")
+    public void saveAllBooksTest() {
+
+        Book hobbit = new Book("Hobbit", "Tolkien", "123");
+        Book silmarillion = new Book("Silmarillion", "Tolkien", "456");
+        Book repeated = new Book("Hobbit", "Tolkien", "123");
+
+        /* Uma única consulta verifica os isbns do lote inteiro */
+        Mockito.when(repository.findExistingIsbns(Mockito.anyCollection()))
+                .thenReturn(Arrays.asList("456"));
+        Mockito.when(repository.saveAll(Mockito.anyList()))
+                .thenReturn(Arrays.asList(new Book(1L, "Hobbit", "Tolkien", "123")));
+
+        List<BookBatchResponse> results = service.saveAll(Arrays.asList(hobbit, silmarillion, repeated));
+
+        Assertions.assertThat(results).hasSize(3);
+        Assertions.assertThat(results.get(0).isAccepted()).isTrue();
+        Assertions.assertThat(results.get(0).getId()).isEqualTo(1L);
+        Assertions.assertThat(results.get(1).isAccepted()).isFalse();
+        Assertions.assertThat(results.get(1).getError()).isEqualTo("Isbn já foi cadastrado");
+        Assertions.assertThat(results.get(2).isAccepted()).isFalse();
+
+        Mockito.verify(repository, Mockito.times(1)).findExistingIsbns(Mockito.anyCollection());
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve buscar a próxima página a partir do cursor ordenado por título")
+    public void findAfterTest() {
+
+        Book book = new Book(2L, "Silmarillion", "Tolkien", "456");
+        BookCursor cursor = new BookCursor(BookCursor.SORT_BY_TITLE, 1L, "Hobbit");
+
+        Mockito.when(repository.findNextByTitle(
+                Mockito.eq(""), Mockito.eq("100\\%"), Mockito.eq(""),
+                Mockito.eq("Hobbit"), Mockito.eq(1L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book)));
+
+        /* O caractere % digitado pelo usuário deve ser escapado para não virar curinga */
+        Slice<Book> slice = service.findAfter(new Book(null, "100%", null), cursor, 10);
+
+        Assertions.assertThat(slice.getContent()).containsExactly(book);
+        Mockito.verify(repository, Mockito.never()).findNextById(
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo índice de texto mantendo a ordem de relevância")
+    public void searchBookTest() {
+
+        Book hobbit = new Book(1L, "O Hobbit", "J. R. R. Tolkien", "123");
+        Book tolkien = new Book(2L, "Tolkien: uma biografia", "Humphrey Carpenter", "456");
+
+        Mockito.when(repository.save(Mockito.any(Book.class))).then(invocation -> invocation.getArgument(0));
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(Arrays.asList(tolkien, hobbit));
+
+        service.save(hobbit);
+        service.save(tolkien);
+
+        /* O título tem peso maior que o autor, então a biografia deve vir primeiro */
+        List<Book> books = service.search("tolkien", 10);
+
+        Assertions.assertThat(books).containsExactly(tolkien, hobbit);
+    }
+
+    @Test
+    @DisplayName("Deve remover o livro do índice de texto ao excluir")
+    public void searchAfterDeleteTest() {
+
+        Book hobbit = new Book(1L, "O Hobbit", "Tolkien", "123");
+        Mockito.when(repository.save(Mockito.any(Book.class))).then(invocation -> invocation.getArgument(0));
+
+        service.save(hobbit);
+        service.delete(hobbit.getId());
+
+        Assertions.assertThat(service.search("hobbit", 10)).isEmpty();
+        Mockito.verify(repository, Mockito.never()).findAllById(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("Deve obter livro do cache na segunda consulta por ID")
+    public void getByIdFromCacheTest() {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        Mockito.when(repository.findById(book.getId())).thenReturn(Optional.of(book));
+
+        service.getById(book.getId());
+        Optional<Book> bookFound = service.getById(book.getId());
+
+        Assertions.assertThat(bookFound.get()).usingRecursiveComparison().isEqualTo(book);
+        Mockito.verify(repository, Mockito.times(1)).findById(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros na ordem pedida, usando o cache e marcando os não encontrados")
+    public void getByIdsTest() {
+
+        Book hobbit = new Book(1L, "Hobbit", "Tolkien", "123");
+        Book duna = new Book(3L, "Duna", "Herbert", "789");
+
+        Mockito.when(repository.findById(hobbit.getId())).thenReturn(Optional.of(hobbit));
+        Mockito.when(repository.findAllById(Arrays.asList(3L, 2L))).thenReturn(Arrays.asList(duna));
+        service.getById(hobbit.getId());
+
+        List<Optional<Book>> books = service.getByIds(Arrays.asList(3L, 1L, 2L, 3L));
+
+        Assertions.assertThat(books).extracting(book -> book.map(Book::getTitle).orElse(null))
+                .containsExactly("Duna", "Hobbit", null, "Duna");
+        /* Os ids em cache e os repetidos não vão para o IN */
+        Mockito.verify(repository, Mockito.times(1)).findAllById(Arrays.asList(3L, 2L));
+        Assertions.assertThat(service.getByIds(Arrays.asList(3L))).extracting(Optional::isPresent)
+                .containsExactly(true);
+        Mockito.verify(repository, Mockito.times(1)).findAllById(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("Deve dividir listas grandes de ids em consultas de até 500 ids")
+    public void getByIdsChunkTest() {
+
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().collect(Collectors.toList());
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(Collections.emptyList());
+
+        List<Optional<Book>> books = service.getByIds(ids);
+
+        Assertions.assertThat(books).hasSize(1200).allMatch(book -> !book.isPresent());
+        Mockito.verify(repository, Mockito.times(3)).findAllById(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("Deve buscar por IN as faltas de cache quando a janela de lote estiver ativa")
+    public void getByIdBatchWindowTest() {
+
+        BookService batching = new BookServiceImpl(repository, new BookSearchIndex(),
+                new BookCache(100, Duration.ofMinutes(10)), isbnFilter, new BookOutbox(eventRepository),
+                TransactionOperations.withoutTransaction(), Duration.ofMillis(5), 100);
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        Mockito.when(repository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(book));
+
+        Assertions.assertThat(batching.getById(1L).get()).usingRecursiveComparison().isEqualTo(book);
+        Assertions.assertThat(batching.getById(1L).get()).usingRecursiveComparison().isEqualTo(book);
+        Mockito.verify(repository, Mockito.times(1)).findAllById(Arrays.asList(1L));
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve gravar no outbox apenas as exclusões que removeram um livro")
+    public void deleteByIdOutboxTest() {
+
+        Mockito.when(repository.deleteBookById(1L)).thenReturn(1);
+        Mockito.when(repository.deleteBookById(2L)).thenReturn(0);
+
+        service.deleteById(1L);
+        service.deleteById(2L);
+
+        Mockito.verify(eventRepository, Mockito.times(1)).save(Mockito.argThat(event ->
+                event.getType() == BookEvent.Type.DELETED && event.getBookId() == 1L));
+        Mockito.verifyNoMoreInteractions(eventRepository);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco novamente após excluir o livro do cache")
+    public void getByIdAfterDeleteTest() {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        Mockito.when(repository.findById(book.getId()))
+                .thenReturn(Optional.of(book))
+                .thenReturn(Optional.empty());
+
+        service.getById(book.getId());
+        service.delete(book.getId());
+
+        Assertions.assertThat(service.getById(book.getId())).isEmpty();
+        Mockito.verify(repository, Mockito.times(2)).findById(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar isbn em cache sem consultar o banco")
+    public void saveWithCachedIsbnTest() {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        Mockito.when(repository.findById(book.getId())).thenReturn(Optional.of(book));
+        service.getById(book.getId());
+
+        Throwable exception = Assertions.catchThrowable(
+                () -> service.save(new Book("Hobbit", "Tolkien", "123123")));
+
+        Assertions.assertThat(exception).isInstanceOf(IsbnException.class);
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Não deve consultar o banco quando o filtro garante que o isbn é novo")
+    public void saveWithIsbnFilterTest() {
+
+        /* Com o filtro carregado e vazio nenhum isbn pode existir no banco */
+        isbnFilter.markReady();
+
+        Book book = new Book("Hobbit", "Tolkien", "123123");
+        Mockito.when(repository.save(book)).thenReturn(new Book(1L, "Hobbit", "Tolkien", "123123"));
+
+        service.save(book);
+
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+        Assertions.assertThat(isbnFilter.mightContain("123123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve consultar isbns do lote quando o filtro garante que todos são novos")
+    public void saveAllWithIsbnFilterTest() {
+
+        isbnFilter.markReady();
+
+        Mockito.when(repository.saveAll(Mockito.anyList()))
+                .thenReturn(Arrays.asList(new Book(1L, "Hobbit", "Tolkien", "123")));
+
+        List<BookBatchResponse> results = service.saveAll(Arrays.asList(new Book("Hobbit", "Tolkien", "123")));
+
+        Assertions.assertThat(results.get(0).isAccepted()).isTrue();
+        Mockito.verify(repository, Mockito.never()).findExistingIsbns(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve excluir livro com um único comando")
+    public void deleteByIdTest() {
+
+        Mockito.when(repository.deleteBookById(1L)).thenReturn(1);
+        Mockito.when(repository.deleteBookById(2L)).thenReturn(0);
+
+        Assertions.assertThat(service.deleteById(1L)).isTrue();
+        Assertions.assertThat(service.deleteById(2L)).isFalse();
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar livro em cache sem consultar o banco novamente")
+    public void updateByIdFromCacheTest() {
+
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+
+        Mockito.when(repository.findById(book.getId())).thenReturn(Optional.of(book));
+        Mockito.when(repository.updateTitleAndAuthorIfVersion(1L, "O Hobbit", "J. R. R. Tolkien", 0L))
+                .thenReturn(1);
+
+        service.getById(book.getId());
+        Optional<Book> updated = service.updateById(1L, "O Hobbit", "J. R. R. Tolkien", 0L);
+
+        Assertions.assertThat(updated).isPresent();
+        Assertions.assertThat(updated.get().getTitle()).isEqualTo("O Hobbit");
+        Assertions.assertThat(updated.get().getIsbn()).isEqualTo("123123");
+        Assertions.assertThat(updated.get().getVersion()).isEqualTo(1L);
+        Assertions.assertThat(service.getById(1L).get()).usingRecursiveComparison().isEqualTo(updated.get());
+        Mockito.verify(repository, Mockito.times(1)).findById(book.getId());
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve colocar o livro atualizado no cache somente depois do commit")
+    public void updateAfterCommitTest() {
+
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10));
+        BookService service = new BookServiceImpl(repository, new BookSearchIndex(), cache, isbnFilter,
+                new BookOutbox(eventRepository), TransactionOperations.withoutTransaction(), Duration.ZERO, 100);
+        Book book = new Book(1L, "Hobbit", "Tolkien", "123123");
+        Mockito.when(repository.save(book)).thenReturn(book);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.update(book);
+            Assertions.assertThat(cache.get(1L)).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            Assertions.assertThat(cache.get(1L).get()).usingRecursiveComparison().isEqualTo(book);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reconciliar o índice de busca com a tabela")
+    public void reconcileSearchIndexTest() {
+
+        BookSearchIndex index = new BookSearchIndex();
+        BookServiceImpl service = new BookServiceImpl(repository, index, new BookCache(100, Duration.ofMinutes(10)),
+                isbnFilter, new BookOutbox(eventRepository), TransactionOperations.withoutTransaction(),
+                Duration.ZERO, 100);
+        ReflectionTestUtils.setField(service, "entityManager", Mockito.mock(EntityManager.class));
+        index.index(new Book(1L, "Hobbit", "Tolkien", "123", 0L));
+        index.index(new Book(2L, "Duna", "Herbert", "456", 0L));
+
+        /* O livro 1 foi alterado e o 2 excluído por outra instância, o 3 foi criado por ela */
+        Mockito.when(repository.streamAll()).thenReturn(Stream.of(
+                new Book(1L, "O Hobbit", "Tolkien", "123", 1L),
+                new Book(3L, "Silmarillion", "Tolkien", "789", 0L)));
+
+        service.reconcileSearchIndex();
+
+        Assertions.assertThat(index.ids()).containsExactlyInAnyOrder(1L, 3L);
+        Assertions.assertThat(index.search("tolkien", 10)).containsExactlyInAnyOrder(1L, 3L);
+        Assertions.assertThat(index.search("duna", 10)).isEmpty();
+        Assertions.assertThat(index.search("o hobbit", 10)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio ao atualizar livro inexistente")
+    public void updateByIdNotFoundTest() {
+
+        Mockito.when(repository.updateTitleAndAuthor(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(0);
+
+        Assertions.assertThat(service.updateById(1L, "Hobbit", "Tolkien", null)).isEmpty();
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de concorrência ao atualizar versão desatualizada")
+    public void updateByIdStaleVersionTest() {
+
+        Mockito.when(repository.updateTitleAndAuthorIfVersion(1L, "Hobbit", "Tolkien", 2L)).thenReturn(0);
+        Mockito.when(repository.existsById(1L)).thenReturn(true);
+
+        Throwable exception = Assertions.catchThrowable(() -> service.updateById(1L, "Hobbit", "Tolkien", 2L));
+
+        Assertions.assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de isbn duplicado quando a constraint do banco for violada")
+    public void saveDuplicatedIsbnByConstraintTest() {
+
+        Book book = new Book("Hobbit", "Tolkien", "123");
+        Mockito.when(repository.existsByIsbn("123")).thenReturn(false);
+        Mockito.when(repository.save(book)).thenThrow(isbnViolation());
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        Assertions.assertThat(exception).isInstanceOf(IsbnException.class).hasMessage("Isbn já foi cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve gravar o lote um a um quando outra requisição gravar um isbn do lote")
+    public void saveAllDuplicatedIsbnByConstraintTest() {
+
+        isbnFilter.markReady();
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenThrow(isbnViolation());
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            if (book.getIsbn().equals("456")) {
+                throw isbnViolation();
+            }
+            return new Book(1L, book.getTitle(), book.getAuthor(), book.getIsbn());
+        });
+
+        List<BookBatchResponse> results = service.saveAll(Arrays.asList(
+                new Book("Hobbit", "Tolkien", "123"),
+                new Book("Silmarillion", "Tolkien", "456")));
+
+        Assertions.assertThat(results.get(0).isAccepted()).isTrue();
+        Assertions.assertThat(results.get(0).getId()).isEqualTo(1L);
+        Assertions.assertThat(results.get(1).isAccepted()).isFalse();
+        Assertions.assertThat(results.get(1).getError()).isEqualTo("Isbn já foi cadastrado");
+    }
+
+    private static DataIntegrityViolationException isbnViolation() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation", null,
+                        "PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)"));
+    }
 }
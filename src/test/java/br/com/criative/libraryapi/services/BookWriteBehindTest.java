@@ -0,0 +1,80 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.responses.BookBatchResponse;
+import br.com.criative.libraryapi.responses.BookCreationStatus;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BookWriteBehindTest {
+
+    BookService service = Mockito.mock(BookService.class);
+
+    @Test
+    @DisplayName("Deve gravar a fila em lote e registrar o resultado de cada pedido")
+    public void writeTest() throws Exception {
+
+        Mockito.when(service.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            List<BookBatchResponse> results = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                String isbn = books.get(i).getIsbn();
+                results.add(isbn.equals("dup")
+                        ? BookBatchResponse.rejected(i, isbn, "Isbn já foi cadastrado")
+                        : BookBatchResponse.accepted(i, isbn, (long) i + 1));
+            }
+            return results;
+        });
+        BookWriteBehind writeBehind = new BookWriteBehind(service, 10, 10, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+        BookCreationStatus created = writeBehind.submit(new Book("Hobbit", "Tolkien", "123")).get();
+        BookCreationStatus rejected = writeBehind.submit(new Book("Hobbit", "Tolkien", "dup")).get();
+        Assertions.assertThat(created.getState()).isEqualTo(BookCreationStatus.State.PENDING);
+
+        writeBehind.destroy();
+
+        Assertions.assertThat(writeBehind.status(created.getId()).get().getState())
+                .isEqualTo(BookCreationStatus.State.CREATED);
+        Assertions.assertThat(writeBehind.status(rejected.getId()).get().getState())
+                .isEqualTo(BookCreationStatus.State.REJECTED);
+        Assertions.assertThat(writeBehind.status(rejected.getId()).get().getError()).isEqualTo("Isbn já foi cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve recusar pedidos com a fila cheia e esvaziá-la ao desligar")
+    public void capacityTest() throws Exception {
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(service.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<Book> books = invocation.getArgument(0);
+            return List.of(BookBatchResponse.accepted(0, books.get(0).getIsbn(), 1L));
+        });
+        BookWriteBehind writeBehind = new BookWriteBehind(service, 1, 1, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+        writeBehind.submit(new Book("A", "A", "1"));
+        Assertions.assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        BookCreationStatus queued = writeBehind.submit(new Book("B", "B", "2")).get();
+        Assertions.assertThat(writeBehind.submit(new Book("C", "C", "3"))).isEmpty();
+        Assertions.assertThat(writeBehind.queued()).isEqualTo(1);
+
+        release.countDown();
+        writeBehind.destroy();
+
+        Assertions.assertThat(writeBehind.queued()).isZero();
+        Assertions.assertThat(writeBehind.status(queued.getId()).get().getState())
+                .isEqualTo(BookCreationStatus.State.CREATED);
+        Assertions.assertThat(writeBehind.submit(new Book("D", "D", "4"))).isEmpty();
+    }
+}
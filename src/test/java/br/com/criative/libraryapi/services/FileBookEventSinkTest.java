@@ -0,0 +1,97 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class FileBookEventSinkTest {
+
+    ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve gravar os eventos em NDJSON e ler a partir de um offset")
+    public void publishAndReadTest() throws Exception {
+
+        Path file = directory.resolve("events.ndjson");
+        try (FileBookEventSink sink = new FileBookEventSink(mapper, file.toString(), false)) {
+            sink.publish(Arrays.asList(BookEvent.created(new Book(1L, "Hobbit", "Tolkien", "123", 0L)),
+                    BookEvent.updated(new Book(1L, "O Hobbit", "Tolkien", "123", 1L)),
+                    BookEvent.deleted(1L)));
+
+            List<BookEventResponse> events = sink.read(1, 1);
+
+            Assertions.assertThat(events).hasSize(1);
+            Assertions.assertThat(events.get(0).getOffset()).isEqualTo(2);
+            Assertions.assertThat(events.get(0).getTitle()).isEqualTo("O Hobbit");
+            Assertions.assertThat(events.get(0).getVersion()).isEqualTo(1L);
+            Assertions.assertThat(events.get(0).getOccurredAt()).isNotNull();
+            Assertions.assertThat(sink.read(3, 10)).isEmpty();
+        }
+
+        Assertions.assertThat(Files.readAllLines(file)).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Deve retomar os offsets ao reabrir o arquivo descartando uma linha incompleta")
+    public void recoverTest() throws Exception {
+
+        Path file = directory.resolve("events.ndjson");
+        try (FileBookEventSink sink = new FileBookEventSink(mapper, file.toString(), false)) {
+            sink.publish(Arrays.asList(BookEvent.deleted(1L), BookEvent.deleted(2L)));
+        }
+        /* Simula uma queda no meio da escrita */
+        Files.write(file, "{\"offset\":3,\"type\":\"DEL".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (FileBookEventSink sink = new FileBookEventSink(mapper, file.toString(), false)) {
+            Assertions.assertThat(sink.lastOffset()).isEqualTo(2);
+
+            sink.publish(Arrays.asList(BookEvent.deleted(3L)));
+
+            Assertions.assertThat(sink.read(0, 10)).extracting(BookEventResponse::getBookId)
+                    .containsExactly(1L, 2L, 3L);
+            Assertions.assertThat(sink.read(2, 10)).extracting(BookEventResponse::getOffset).containsExactly(3L);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar as linhas de uma escrita que falhou antes de gravar o próximo lote")
+    public void failedWriteTest() throws Exception {
+
+        Path file = directory.resolve("events.ndjson");
+        try (FileBookEventSink sink = new FileBookEventSink(mapper, file.toString(), false)) {
+            sink.publish(Arrays.asList(BookEvent.deleted(1L), BookEvent.deleted(2L)));
+
+            /* Simula um lote que gravou a primeira linha e falhou na segunda */
+            Files.write(file, (mapper.writeValueAsString(BookEventResponse.of(3, BookEvent.deleted(99L))) + "\n")
+                    .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            sink.publish(Arrays.asList(BookEvent.deleted(3L)));
+        }
+
+        try (FileBookEventSink sink = new FileBookEventSink(mapper, file.toString(), false)) {
+            Assertions.assertThat(sink.lastOffset()).isEqualTo(3);
+            Assertions.assertThat(sink.read(0, 10)).extracting(BookEventResponse::getBookId)
+                    .containsExactly(1L, 2L, 3L);
+        }
+        Assertions.assertThat(Files.readAllLines(file)).hasSize(3);
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.criative.libraryapi.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IsbnBloomFilterTest {
+
+    @Test
+    @DisplayName("Deve considerar qualquer isbn como possível enquanto não estiver carregado")
+    public void notReadyFilterTest() {
+
+        IsbnBloomFilter filter = new IsbnBloomFilter(1000, 0.01);
+
+        Assertions.assertThat(filter.mightContain("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve encontrar todos os isbns inseridos e respeitar a taxa de falsos positivos")
+    public void falsePositiveRateTest() {
+
+        IsbnBloomFilter filter = new IsbnBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("978" + i);
+        }
+        filter.markReady();
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertThat(filter.mightContain("978" + i)).isTrue();
+            if (filter.mightContain("979" + i)) {
+                falsePositives++;
+            }
+        }
+
+        /* Margem de folga sobre a taxa configurada de 1% */
+        Assertions.assertThat(falsePositives).isLessThan(200);
+        Assertions.assertThat(filter.fillRatio()).isBetween(0.3, 0.7);
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.criative.libraryapi.services;
+
+import br.com.criative.libraryapi.models.Book;
+import br.com.criative.libraryapi.models.BookEvent;
+import br.com.criative.libraryapi.responses.BookEventResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class MemoryBookEventSinkTest {
+
+    @Test
+    @DisplayName("Deve atribuir offsets crescentes e ler a partir do último offset processado")
+    public void readAfterOffsetTest() {
+
+        MemoryBookEventSink sink = new MemoryBookEventSink(10, 0);
+        sink.publish(Arrays.asList(BookEvent.created(new Book(1L, "Hobbit", "Tolkien", "123")),
+                BookEvent.deleted(1L)));
+        sink.publish(Arrays.asList(BookEvent.created(new Book(2L, "Duna", "Herbert", "789"))));
+
+        List<BookEventResponse> events = sink.read(1, 10);
+
+        Assertions.assertThat(sink.lastOffset()).isEqualTo(3);
+        Assertions.assertThat(events).extracting(BookEventResponse::getOffset).containsExactly(2L, 3L);
+        Assertions.assertThat(events).extracting(BookEventResponse::getType).containsExactly("DELETED", "CREATED");
+        Assertions.assertThat(sink.read(3, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve entregar a partir do evento mais antigo guardado quando o consumidor ficar para trás")
+    public void capacityTest() {
+
+        MemoryBookEventSink sink = new MemoryBookEventSink(2, 0);
+        for (long id = 1; id <= 5; id++) {
+            sink.publish(Arrays.asList(BookEvent.deleted(id)));
+        }
+
+        Assertions.assertThat(sink.read(0, 10)).extracting(BookEventResponse::getBookId).containsExactly(4L, 5L);
+        Assertions.assertThat(sink.read(3, 1)).extracting(BookEventResponse::getOffset).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Deve começar os offsets pelo instante da inicialização para não repetir os da execução anterior")
+    public void restartTest() {
+
+        long previousRun = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - 1000;
+
+        MemoryBookEventSink sink = new MemoryBookEventSink(10);
+        sink.publish(Arrays.asList(BookEvent.deleted(1L)));
+
+        Assertions.assertThat(sink.lastOffset()).isGreaterThan(previousRun);
+        Assertions.assertThat(sink.read(previousRun, 10)).extracting(BookEventResponse::getBookId)
+                .containsExactly(1L);
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.criative.libraryapi.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    static final int THREADS = 8;
+
+    @Test
+    @DisplayName("Deve executar o loader uma única vez para chamadas concorrentes com a mesma chave")
+    public void sharedExecutionTest() throws Exception {
+
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = run(THREADS, () -> flight.execute(1L, () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "Hobbit";
+        }), started);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Assertions.assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Hobbit");
+        }
+        Assertions.assertThat(loads).hasValue(1);
+        Assertions.assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção do loader para todas as chamadas que esperavam")
+    public void sharedFailureTest() throws Exception {
+
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = run(THREADS, () -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("banco indisponível");
+        }), started);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Throwable exception = Assertions.catchThrowable(() -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+        }
+        Assertions.assertThat(flight.execute(1L, () -> "Hobbit")).isEqualTo("Hobbit");
+    }
+
+    /* A primeira chamada fica presa no loader; as demais só são liberadas
+    depois que todas estiverem esperando pelo resultado compartilhado */
+    private static List<Future<String>> run(int threads, Callable<String> task,
+                                            CountDownLatch started) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Thread> workers = new CopyOnWriteArrayList<>();
+        List<Future<String>> results = new ArrayList<>();
+
+        results.add(executor.submit(task));
+        started.await(5, TimeUnit.SECONDS);
+        CountDownLatch ready = new CountDownLatch(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                workers.add(Thread.currentThread());
+                ready.countDown();
+                return task.call();
+            }));
+        }
+        ready.await(5, TimeUnit.SECONDS);
+        waitUntilParked(workers);
+        executor.shutdown();
+        return results;
+    }
+
+    private static void waitUntilParked(List<Thread> workers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline
+                && !workers.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}